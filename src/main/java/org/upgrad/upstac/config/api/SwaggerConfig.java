@@ -78,6 +78,11 @@ public class SwaggerConfig {
         return or(
                 ant("/api/testrequests/**"),
                 ant("/api/government/**"),
+                ant("/api/stats/**"),
+                ant("/api/search/**"),
+                ant("/api/datasource/**"),
+                ant("/api/cache/**"),
+                ant("/api/changes/**"),
                 ant("/api/consultations/**"),
                 ant("/users/**"),
                 ant("/api/labrequests/**")
@@ -0,0 +1,50 @@
+package org.upgrad.upstac.config.cache;
+
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.upgrad.upstac.exception.AppException;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+
+
+    //Read from the statistics MBeans the JCache provider registers for each second-level cache region
+    @GetMapping("/status")
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public List<CacheRegionStatus> getStatus() {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        List<CacheRegionStatus> statuses = new ArrayList<>();
+
+        try {
+            for (ObjectName name : mBeanServer.queryNames(new ObjectName("javax.cache:type=CacheStatistics,*"), null)) {
+                CacheRegionStatus status = new CacheRegionStatus();
+                status.setRegion(name.getKeyProperty("Cache"));
+                status.setHits((Long) mBeanServer.getAttribute(name, "CacheHits"));
+                status.setMisses((Long) mBeanServer.getAttribute(name, "CacheMisses"));
+                status.setHitPercentage((Float) mBeanServer.getAttribute(name, "CacheHitPercentage"));
+                status.setPuts((Long) mBeanServer.getAttribute(name, "CachePuts"));
+                status.setRemovals((Long) mBeanServer.getAttribute(name, "CacheRemovals"));
+                status.setEvictions((Long) mBeanServer.getAttribute(name, "CacheEvictions"));
+                statuses.add(status);
+            }
+        } catch (JMException e) {
+            throw new AppException("Unable to read cache statistics", e);
+        }
+
+        statuses.sort(Comparator.comparing(CacheRegionStatus::getRegion));
+        return statuses;
+    }
+
+}
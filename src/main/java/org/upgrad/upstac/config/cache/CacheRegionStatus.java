@@ -0,0 +1,15 @@
+package org.upgrad.upstac.config.cache;
+
+import lombok.Data;
+
+@Data
+public class CacheRegionStatus {
+
+    private String region;
+    private long hits;
+    private long misses;
+    private float hitPercentage;
+    private long puts;
+    private long removals;
+    private long evictions;
+}
@@ -0,0 +1,32 @@
+package org.upgrad.upstac.config.cache;
+
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URISyntaxException;
+
+//The JCache provider keeps one cache manager per configuration URI and class loader, so Hibernate looking it up
+//by URI would share it with every application context in the JVM, and closing any of them would close the caches
+//of all. Each context creates its own under a class loader of its own, and hands it to Hibernate.
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager() throws URISyntaxException {
+        ClassLoader classLoader = new ClassLoader(getClass().getClassLoader()) {
+        };
+        return Caching.getCachingProvider(EhcacheCachingProvider.class.getName())
+                .getCacheManager(getClass().getResource("/ehcache.xml").toURI(), classLoader);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheManagerCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+
+}
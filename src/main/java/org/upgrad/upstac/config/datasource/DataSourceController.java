@@ -0,0 +1,41 @@
+package org.upgrad.upstac.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+
+@RestController
+@RequestMapping("/api/datasource")
+public class DataSourceController {
+
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired(required = false)
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+
+    //Pool usage of the primary and of each replica
+    @GetMapping("/status")
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public List<DataSourceTargetStatus> getStatus() throws SQLException {
+        if (null != replicaRoutingDataSource)
+            return replicaRoutingDataSource.getStatus();
+
+        if (!dataSource.isWrapperFor(HikariDataSource.class))
+            return Collections.emptyList();
+
+        return Collections.singletonList(ReplicaRoutingDataSource.statusOf(dataSource.unwrap(HikariDataSource.class), false, 0));
+    }
+
+}
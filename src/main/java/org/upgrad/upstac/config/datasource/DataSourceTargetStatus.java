@@ -0,0 +1,18 @@
+package org.upgrad.upstac.config.datasource;
+
+import lombok.Data;
+
+@Data
+public class DataSourceTargetStatus {
+
+    private String name;
+    private boolean replica;
+
+    //Physical connections the router sent to this target since startup
+    private long connectionsRouted;
+
+    private int activeConnections;
+    private int idleConnections;
+    private int totalConnections;
+    private int threadsAwaitingConnection;
+}
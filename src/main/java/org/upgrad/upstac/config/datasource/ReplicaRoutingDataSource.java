@@ -0,0 +1,217 @@
+package org.upgrad.upstac.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+//Sends read-only transactions to the replicas, round robin, and everything else to the primary.
+//A user whose write committed less than stickyMillis ago reads from the primary, so they see their own change
+//before it reached the replicas; a transaction only counts as a write once it sends an insert, update or delete.
+//The key is looked up when a connection is first used, which needs the LazyConnectionDataSourceProxy in front
+//of it: the read-only flag is only set once the transaction has begun.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    public static final String PRIMARY = "primary";
+
+    private final HikariDataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final long stickyMillis;
+    private final Supplier<String> currentUserName;
+
+    private final Map<String, AtomicLong> connectionsRouted = new LinkedHashMap<>();
+    private final Map<String, Long> stickyUntil = new ConcurrentHashMap<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private static final ThreadLocal<Boolean> primaryHint = new ThreadLocal<>();
+
+    private static final Pattern WRITE = Pattern.compile("^\\s*(insert|update|delete|merge|replace)\\b", Pattern.CASE_INSENSITIVE);
+
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas, long stickyMillis, Supplier<String> currentUserName) {
+        if (replicas.isEmpty())
+            throw new IllegalArgumentException("At least one replica is needed");
+
+        this.primary = primary;
+        this.replicas = replicas;
+        this.stickyMillis = stickyMillis;
+        this.currentUserName = currentUserName;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        connectionsRouted.put(PRIMARY, new AtomicLong());
+        for (HikariDataSource replica : replicas) {
+            targets.put(replica.getPoolName(), replica);
+            connectionsRouted.put(replica.getPoolName(), new AtomicLong());
+        }
+
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+
+    //Read-only transactions run inside go to the primary, for reads that replica lag must not hide
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = primaryHint.get();
+        primaryHint.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (null == previous)
+                primaryHint.remove();
+            else
+                primaryHint.set(previous);
+        }
+    }
+
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String key = TransactionSynchronizationManager.isCurrentTransactionReadOnly() && null == primaryHint.get() && !isStickyToPrimary(currentUserName.get())
+                ? nextReplica()
+                : PRIMARY;
+
+        connectionsRouted.get(key).incrementAndGet();
+        return key;
+    }
+
+    private String nextReplica() {
+        return replicas.get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size())).getPoolName();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        return trackingWrites(target, target.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        DataSource target = determineTargetDataSource();
+        return trackingWrites(target, target.getConnection(username, password));
+    }
+
+    private Connection trackingWrites(DataSource target, Connection connection) {
+        String userName = currentUserName.get();
+        if (target != primary || null == userName)
+            return connection;
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                new WriteTracker(connection, userName));
+    }
+
+    //Watches the SQL a connection prepares or executes, and makes its user sticky once it writes:
+    //when the transaction commits, or at once outside a transaction
+    private class WriteTracker implements InvocationHandler {
+
+        private final Object target;
+        private final String userName;
+        private boolean written;
+
+        WriteTracker(Object target, String userName) {
+            this.target = target;
+            this.userName = userName;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("equals".equals(method.getName()) && null != args && 1 == args.length)
+                return proxy == args[0];
+            if ("hashCode".equals(method.getName()) && null == args)
+                return System.identityHashCode(proxy);
+
+            if (!written && null != args && args.length > 0 && args[0] instanceof String && WRITE.matcher((String) args[0]).find())
+                onWrite();
+
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+
+            //Statements get their SQL when executed rather than when created
+            if (result instanceof Statement && !(result instanceof PreparedStatement))
+                return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class}, new WriteTracker(result, userName));
+            return result;
+        }
+
+        private void onWrite() {
+            written = true;
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                stickyUntil.put(userName, System.currentTimeMillis() + stickyMillis);
+                return;
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    stickyUntil.put(userName, System.currentTimeMillis() + stickyMillis);
+                }
+            });
+        }
+    }
+
+    boolean isStickyToPrimary(String userName) {
+        if (null == userName)
+            return false;
+
+        Long until = stickyUntil.get(userName);
+        if (null == until)
+            return false;
+        if (until > System.currentTimeMillis())
+            return true;
+
+        stickyUntil.remove(userName, until);
+        return false;
+    }
+
+
+    public List<DataSourceTargetStatus> getStatus() {
+        List<DataSourceTargetStatus> statuses = new ArrayList<>();
+        statuses.add(statusOf(primary, false, connectionsRouted.get(PRIMARY).get()));
+        for (HikariDataSource replica : replicas)
+            statuses.add(statusOf(replica, true, connectionsRouted.get(replica.getPoolName()).get()));
+        return statuses;
+    }
+
+    static DataSourceTargetStatus statusOf(HikariDataSource dataSource, boolean replica, long routed) {
+        DataSourceTargetStatus status = new DataSourceTargetStatus();
+        status.setName(dataSource.getPoolName());
+        status.setReplica(replica);
+        status.setConnectionsRouted(routed);
+
+        //Null until the pool has handed out its first connection
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (null != pool) {
+            status.setActiveConnections(pool.getActiveConnections());
+            status.setIdleConnections(pool.getIdleConnections());
+            status.setTotalConnections(pool.getTotalConnections());
+            status.setThreadsAwaitingConnection(pool.getThreadsAwaitingConnection());
+        }
+        return status;
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+        primary.close();
+    }
+
+}
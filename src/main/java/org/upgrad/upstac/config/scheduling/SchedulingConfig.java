@@ -0,0 +1,13 @@
+package org.upgrad.upstac.config.scheduling;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+//The periodic jobs (reconciles, report polling, catch-ups, nightly rebuilds) run unless scheduling.enabled is
+//false, which tests set so that only the work they drive themselves touches the database
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "scheduling.enabled", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -33,10 +33,10 @@ public class UpgradUserDetailsService implements UserDetailsService {
 	@Override
 	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 		User user = userService.findByUserName(username);
-		log.info("loadUserByUsername " + user.toString());
 		if(user == null){
 			throw new UsernameNotFoundException("Invalid username or password.");
 		}
+		log.debug("loadUserByUsername " + username);
 		return new org.springframework.security.core.userdetails.User(user.getUserName(), user.getPassword(), getAuthority(user));
 	}
 
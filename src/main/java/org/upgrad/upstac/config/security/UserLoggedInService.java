@@ -3,11 +3,15 @@ package org.upgrad.upstac.config.security;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.upgrad.upstac.users.User;
 import org.upgrad.upstac.users.UserService;
+import org.upgrad.upstac.users.roles.UserRole;
+
+import java.util.Set;
 
 
 @Component
@@ -22,9 +26,22 @@ public class UserLoggedInService {
 
 
     public User getLoggedInUser() {
-            UserDetails principal = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-            return userService.findByUserName(principal.getUsername());
+            return userService.findByUserName(getLoggedInUserName());
+
+    }
+
+    //Read from the authorities of the token, without loading the user; a user has one role
+    public UserRole getLoggedInUserRole() {
+        Set<String> authorities = AuthorityUtils.authorityListToSet(SecurityContextHolder.getContext().getAuthentication().getAuthorities());
+        for (UserRole role : UserRole.values())
+            if (authorities.contains("ROLE_" + role.name()))
+                return role;
+        return null;
+    }
 
+    public String getLoggedInUserName() {
+        UserDetails principal = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return principal.getUsername();
     }
 
 
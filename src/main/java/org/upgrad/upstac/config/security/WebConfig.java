@@ -1,19 +1,42 @@
 package org.upgrad.upstac.config.security;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.WebContentInterceptor;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    //Browsers may cache preflight responses for this long instead of sending OPTIONS before every call
+    static final long CORS_MAX_AGE_SECONDS = 3600;
+
+    //Endpoints answering with an ETag; clients must revalidate, and only the caller's own cache may keep them
+    static final String[] CONDITIONAL_GET_PATHS = {
+            "/api/testrequests",
+            "/api/labrequests",
+            "/api/labrequests/to-be-tested",
+            "/api/consultations",
+            "/api/consultations/in-queue"
+    };
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
                 .allowedMethods("*")
                 .allowedOrigins("*")
                 .allowedHeaders("*")
-                .exposedHeaders("Location", "Access-Control-Allow-Origin");
+                .exposedHeaders("Location", "Access-Control-Allow-Origin", "ETag")
+                .maxAge(CORS_MAX_AGE_SECONDS);
 
     }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        WebContentInterceptor webContentInterceptor = new WebContentInterceptor();
+        webContentInterceptor.addCacheMapping(CacheControl.noCache().cachePrivate(), CONDITIONAL_GET_PATHS);
+        registry.addInterceptor(webContentInterceptor);
+    }
 }
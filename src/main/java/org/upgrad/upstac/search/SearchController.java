@@ -0,0 +1,41 @@
+package org.upgrad.upstac.search;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.upgrad.upstac.exception.AppException;
+
+import static org.upgrad.upstac.exception.UpgradResponseStatusException.asBadRequest;
+
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+
+    @Autowired
+    private SearchService searchService;
+
+
+    //Matches anywhere in a name, phone number or email; phone numbers match on their digits alone
+    @GetMapping
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public Slice<SearchHit> search(@RequestParam String q,
+                                   @RequestParam(required = false) SearchIndex.Type type,
+                                   @RequestParam(defaultValue = "0") int page,
+                                   @RequestParam(defaultValue = "20") int size) {
+        try {
+            return searchService.search(q, type, page, size);
+        } catch (AppException e) {
+            throw asBadRequest(e.getMessage());
+        }
+    }
+
+    @GetMapping("/status")
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public SearchIndexStatus getStatus() {
+        return searchService.getStatus();
+    }
+
+}
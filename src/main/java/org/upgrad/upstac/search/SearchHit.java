@@ -0,0 +1,15 @@
+package org.upgrad.upstac.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class SearchHit {
+
+    private SearchIndex.Type type;
+    private Long id;
+    private String name;
+    private String phoneNumber;
+    private String email;
+}
@@ -0,0 +1,321 @@
+package org.upgrad.upstac.search;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.upgrad.upstac.exception.AppException;
+
+import java.util.*;
+
+//Substring search over the name, phone number and email of test requests and users.
+//Every field is split into overlapping trigrams, each mapping to the sorted ordinals of the documents holding it.
+//A query reads the postings of its own trigrams, walks the shortest one and checks the others by binary search,
+//then confirms each candidate against the stored fields. Memory is estimated as documents are added and removed;
+//once it reaches maxBytes the oldest documents are evicted to make room for new ones.
+public class SearchIndex {
+
+    public enum Type {TEST_REQUEST, USER}
+
+    public static final int GRAM = 3;
+
+    //Rough JVM costs of a stored document, a trigram key with its postings, and one posting with the spare
+    //capacity of its doubling array
+    static final int DOCUMENT_BYTES = 120;
+    static final int TERM_BYTES = 96;
+    static final int POSTING_BYTES = 8;
+
+    private final long maxBytes;
+
+    private final List<Document> documents = new ArrayList<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    //Ordinals from the oldest document to the newest. Loading goes newest first and adds at the front, later
+    //changes add at the back; ordinals of removed documents are skipped when evicting and dropped on compaction.
+    private Deque<Integer> byAge = new ArrayDeque<>();
+
+    private long bytes;
+    private int removed;
+    private boolean complete = true;
+
+
+    static class Document {
+        final Type type;
+        final Long id;
+        final String name;
+        final String phoneNumber;
+        final String email;
+        final String[] terms;
+
+        Document(Type type, Long id, String name, String phoneNumber, String email) {
+            this.type = type;
+            this.id = id;
+            this.name = name;
+            this.phoneNumber = phoneNumber;
+            this.email = email;
+            this.terms = new String[]{normalize(name), toDigits(phoneNumber), normalize(email)};
+        }
+
+        boolean contains(String query, String digits) {
+            for (String term : terms)
+                if (term.contains(query))
+                    return true;
+            return !digits.isEmpty() && terms[1].contains(digits);
+        }
+
+        long estimateBytes() {
+            long length = 0;
+            for (String term : terms)
+                length += term.length();
+            return DOCUMENT_BYTES + 4 * length;
+        }
+
+        long estimatePostingBytes() {
+            long grams = 0;
+            for (String term : terms)
+                grams += Math.max(0, term.length() - GRAM + 1);
+            return POSTING_BYTES * grams;
+        }
+    }
+
+    //Ordinals only grow, so appending keeps each array sorted
+    static class Postings {
+        int[] ordinals = new int[2];
+        int size;
+
+        void add(int ordinal) {
+            if (size > 0 && ordinals[size - 1] == ordinal)
+                return;
+            if (size == ordinals.length)
+                ordinals = Arrays.copyOf(ordinals, ordinals.length * 2);
+            ordinals[size++] = ordinal;
+        }
+
+        boolean contains(int ordinal) {
+            return Arrays.binarySearch(ordinals, 0, size, ordinal) >= 0;
+        }
+    }
+
+
+    public SearchIndex(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+
+    //Adds or replaces a document as the newest, evicting the oldest ones if needed; returns false only when
+    //the document alone is larger than the budget
+    public synchronized boolean put(Type type, Long id, String name, String phoneNumber, String email) {
+        String key = toKey(type, id);
+        if (ordinals.containsKey(key))
+            remove(type, id);
+
+        Document document = new Document(type, id, name, phoneNumber, email);
+        long added = estimateAddedBytes(document);
+        while (bytes + added > maxBytes) {
+            complete = false;
+            if (evictOldest())
+                continue;
+            if (0 == removed)
+                return false;
+
+            //Only the trigram keys of removed documents are left to reclaim
+            compact();
+            added = estimateAddedBytes(document);
+        }
+
+        byAge.addLast(add(key, document));
+        bytes += added;
+        return true;
+    }
+
+    //For loading, newest first: the document is older than every one indexed, so it is left out when there
+    //is no room, and a document already put by a later change is newer than the one being loaded
+    public synchronized boolean putIfAbsent(Type type, Long id, String name, String phoneNumber, String email) {
+        String key = toKey(type, id);
+        if (ordinals.containsKey(key))
+            return true;
+
+        Document document = new Document(type, id, name, phoneNumber, email);
+        long added = estimateAddedBytes(document);
+        if (bytes + added > maxBytes) {
+            complete = false;
+            return false;
+        }
+
+        byAge.addFirst(add(key, document));
+        bytes += added;
+        return true;
+    }
+
+    public synchronized boolean contains(Type type, Long id) {
+        return ordinals.containsKey(toKey(type, id));
+    }
+
+    private boolean evictOldest() {
+        Integer ordinal;
+        while (null != (ordinal = byAge.pollFirst())) {
+            Document document = documents.get(ordinal);
+            if (null != document) {
+                remove(document.type, document.id);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long estimateAddedBytes(Document document) {
+        long added = document.estimateBytes() + document.estimatePostingBytes();
+        Set<String> newGrams = new HashSet<>();
+        for (String term : document.terms) {
+            for (int start = 0; start + GRAM <= term.length(); start++) {
+                String gram = term.substring(start, start + GRAM);
+                if (!postings.containsKey(gram) && newGrams.add(gram))
+                    added += TERM_BYTES;
+            }
+        }
+        return added;
+    }
+
+    private int add(String key, Document document) {
+        int ordinal = documents.size();
+        documents.add(document);
+        ordinals.put(key, ordinal);
+
+        for (String term : document.terms)
+            for (int start = 0; start + GRAM <= term.length(); start++)
+                postings.computeIfAbsent(term.substring(start, start + GRAM), gram -> new Postings()).add(ordinal);
+        return ordinal;
+    }
+
+    //Leaves the postings in place and compacts once a quarter of the documents are gone. The estimate drops
+    //the document's postings now, as they are only kept until then; trigram keys are counted until compaction.
+    public synchronized void remove(Type type, Long id) {
+        Integer ordinal = ordinals.remove(toKey(type, id));
+        if (null == ordinal)
+            return;
+
+        Document document = documents.get(ordinal);
+        bytes -= document.estimateBytes() + document.estimatePostingBytes();
+        documents.set(ordinal, null);
+        removed++;
+
+        if (removed > 1000 && removed * 4 > documents.size())
+            compact();
+    }
+
+    private void compact() {
+        List<Document> live = new ArrayList<>(ordinals.size());
+        int[] compacted = new int[documents.size()];
+        for (int ordinal = 0; ordinal < documents.size(); ordinal++) {
+            Document document = documents.get(ordinal);
+            compacted[ordinal] = null == document ? -1 : live.size();
+            if (null != document)
+                live.add(document);
+        }
+
+        Deque<Integer> compactedByAge = new ArrayDeque<>(live.size());
+        for (int ordinal : byAge)
+            if (compacted[ordinal] >= 0)
+                compactedByAge.addLast(compacted[ordinal]);
+        byAge = compactedByAge;
+
+        documents.clear();
+        ordinals.clear();
+        postings.clear();
+        bytes = 0;
+        removed = 0;
+        for (Document document : live) {
+            bytes += estimateAddedBytes(document);
+            add(toKey(document.type, document.id), document);
+        }
+    }
+
+
+    //Matches are returned in index order; type is optional
+    public synchronized Slice<SearchHit> search(String query, Type type, int page, int size) {
+
+        String normalized = normalize(query);
+        String digits = toDigits(query);
+        if (!digits.isEmpty() && !normalized.replaceAll("[\\s()+\\-]", "").equals(digits))
+            digits = "";
+
+        if (normalized.length() < GRAM && digits.length() < GRAM)
+            throw new AppException("Search for at least " + GRAM + " characters");
+
+        List<Integer> candidates = findCandidates(normalized);
+        if (!digits.isEmpty() && !digits.equals(normalized)) {
+            Set<Integer> union = new TreeSet<>(candidates);
+            union.addAll(findCandidates(digits));
+            candidates = new ArrayList<>(union);
+        }
+
+        int skip = page * size;
+        List<SearchHit> hits = new ArrayList<>();
+        boolean hasNext = false;
+        for (int ordinal : candidates) {
+            Document document = documents.get(ordinal);
+            if (null == document || (null != type && document.type != type) || !document.contains(normalized, digits))
+                continue;
+
+            if (skip > 0) {
+                skip--;
+            } else if (hits.size() < size) {
+                hits.add(new SearchHit(document.type, document.id, document.name, document.phoneNumber, document.email));
+            } else {
+                hasNext = true;
+                break;
+            }
+        }
+
+        return new SliceImpl<>(hits, PageRequest.of(page, size), hasNext);
+    }
+
+    private List<Integer> findCandidates(String term) {
+        if (term.length() < GRAM)
+            return Collections.emptyList();
+
+        List<Postings> lists = new ArrayList<>();
+        for (int start = 0; start + GRAM <= term.length(); start++) {
+            Postings gramPostings = postings.get(term.substring(start, start + GRAM));
+            if (null == gramPostings)
+                return Collections.emptyList();
+            lists.add(gramPostings);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        List<Integer> candidates = new ArrayList<>();
+        Postings shortest = lists.get(0);
+        for (int i = 0; i < shortest.size; i++) {
+            int ordinal = shortest.ordinals[i];
+            boolean inAll = true;
+            for (int other = 1; other < lists.size() && inAll; other++)
+                inAll = lists.get(other).contains(ordinal);
+            if (inAll)
+                candidates.add(ordinal);
+        }
+        return candidates;
+    }
+
+
+    public synchronized SearchIndexStatus getStatus() {
+        SearchIndexStatus status = new SearchIndexStatus();
+        status.setDocuments(ordinals.size());
+        status.setEstimatedBytes(bytes);
+        status.setMaxBytes(maxBytes);
+        status.setComplete(complete);
+        return status;
+    }
+
+    private static String toKey(Type type, Long id) {
+        return type.ordinal() + ":" + id;
+    }
+
+    static String normalize(String text) {
+        return null == text ? "" : text.trim().toLowerCase();
+    }
+
+    static String toDigits(String text) {
+        return null == text ? "" : text.replaceAll("\\D", "");
+    }
+
+}
@@ -0,0 +1,15 @@
+package org.upgrad.upstac.search;
+
+import lombok.Data;
+
+@Data
+public class SearchIndexStatus {
+
+    private boolean built;
+    private int documents;
+    private long estimatedBytes;
+    private long maxBytes;
+
+    //False once documents were left out to stay within maxBytes; the oldest are the ones missing
+    private boolean complete;
+}
@@ -0,0 +1,233 @@
+package org.upgrad.upstac.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestRepository;
+import org.upgrad.upstac.testrequests.TestRequestStatusChangedEvent;
+import org.upgrad.upstac.users.UserRepository;
+import org.upgrad.upstac.users.UserUpdatedEvent;
+import org.upgrad.upstac.users.models.AccountStatus;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.upgrad.upstac.search.SearchIndex.Type.TEST_REQUEST;
+import static org.upgrad.upstac.search.SearchIndex.Type.USER;
+
+//Keeps the SearchIndex in step with the database: loaded newest first in the background after startup,
+//then updated as requests are created and users are saved on this node, and caught up every
+//search.catch-up-millis with what other nodes wrote. Deleted accounts are left out.
+@Service
+public class SearchService {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    static final int LOAD_PAGE_SIZE = 1000;
+
+    @Value("${search.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${search.load-on-startup:true}")
+    private boolean loadOnStartup;
+
+    @Autowired
+    private TestRequestRepository testRequestRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private SearchIndex searchIndex;
+
+    private volatile boolean built;
+
+    //Written by the load before built is set, then only by catchUp
+    private long requestsScanFrom;
+    private long requestsScannedTo;
+    private LocalDateTime usersUpdatedSince;
+    private LocalDateTime lastCatchUpStarted;
+
+    private static final Logger log = LoggerFactory.getLogger(SearchService.class);
+
+
+    //Rows of one type, newest first, read a page at a time
+    private static class NewestFirst {
+        private final Function<Long, List<Object[]>> pageBefore;
+        private final Function<Object[], LocalDate> createdOf;
+        private List<Object[]> rows = Collections.emptyList();
+        private int next;
+        private Long before = Long.MAX_VALUE;
+        private boolean exhausted;
+
+        NewestFirst(Function<Long, List<Object[]>> pageBefore, Function<Object[], LocalDate> createdOf) {
+            this.pageBefore = pageBefore;
+            this.createdOf = createdOf;
+        }
+
+        Object[] peek() {
+            if (next == rows.size() && !exhausted) {
+                rows = pageBefore.apply(before);
+                next = 0;
+                exhausted = rows.isEmpty();
+                if (!exhausted)
+                    before = (Long) rows.get(rows.size() - 1)[0];
+            }
+            return next < rows.size() ? rows.get(next) : null;
+        }
+
+        LocalDate created() {
+            LocalDate created = createdOf.apply(peek());
+            return null == created ? LocalDate.MIN : created;
+        }
+
+        void skip() {
+            next++;
+        }
+    }
+
+
+    @PostConstruct
+    void createIndex() {
+        searchIndex = new SearchIndex(maxBytes);
+    }
+
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        if (!loadOnStartup)
+            return;
+
+        Thread loader = new Thread(this::load, "search-index-load");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    //Requests and users are merged by creation date, so when the budget runs out it is the oldest of
+    //either type that are left out rather than every user
+    void load() {
+        long started = System.currentTimeMillis();
+        LocalDateTime loadStarted = LocalDateTime.now();
+        try {
+            NewestFirst requests = new NewestFirst(before -> testRequestRepository.findSearchFieldsBefore(before, PageRequest.of(0, LOAD_PAGE_SIZE)),
+                    row -> (LocalDate) row[4]);
+            NewestFirst users = new NewestFirst(before -> userRepository.findSearchFieldsBefore(before, PageRequest.of(0, LOAD_PAGE_SIZE)),
+                    row -> null == row[6] ? null : ((LocalDateTime) row[6]).toLocalDate());
+
+            long highestRequestId = null == requests.peek() ? 0 : (Long) requests.peek()[0];
+            while (true) {
+                Object[] request = requests.peek();
+                Object[] user = users.peek();
+                if (null == request && null == user)
+                    break;
+
+                boolean added;
+                if (null != request && (null == user || !requests.created().isBefore(users.created()))) {
+                    added = putRequest(request, false);
+                    requests.skip();
+                } else {
+                    added = putUser(user, false);
+                    users.skip();
+                }
+                if (!added)
+                    break;
+            }
+
+            requestsScanFrom = requestsScannedTo = highestRequestId;
+            usersUpdatedSince = lastCatchUpStarted = loadStarted;
+            built = true;
+            SearchIndexStatus status = searchIndex.getStatus();
+            log.info("search index loaded " + status.getDocuments() + " document(s), about " + status.getEstimatedBytes() / 1024 + " KB, in "
+                    + (System.currentTimeMillis() - started) + " ms" + (status.isComplete() ? "" : "; older documents left out to stay within search.max-bytes"));
+        } catch (RuntimeException e) {
+            log.error("search index load stopped", e);
+        }
+    }
+
+    //Ids are taken at insert but only seen at commit, and updated is stamped by each node's own clock, so
+    //every pass reads again what the pass before it read. A request or user is found as long as it commits
+    //within one interval of a later id being seen, and node clocks are within one interval of each other.
+    @Scheduled(fixedDelayString = "${search.catch-up-millis:60000}")
+    public void catchUp() {
+        if (!built)
+            return;
+
+        LocalDateTime started = LocalDateTime.now();
+        List<Object[]> rows;
+        long after = requestsScanFrom;
+        while (!(rows = testRequestRepository.findSearchFieldsAfter(after, PageRequest.of(0, LOAD_PAGE_SIZE))).isEmpty()) {
+            for (Object[] row : rows)
+                if (!searchIndex.contains(TEST_REQUEST, (Long) row[0]))
+                    putRequest(row, true);
+            after = (Long) rows.get(rows.size() - 1)[0];
+        }
+        requestsScanFrom = requestsScannedTo;
+        requestsScannedTo = Math.max(requestsScannedTo, after);
+
+        userRepository.findSearchFieldsUpdatedSince(usersUpdatedSince).forEach(row -> putUser(row, true));
+        usersUpdatedSince = lastCatchUpStarted;
+        lastCatchUpStarted = started;
+    }
+
+    private boolean putRequest(Object[] row, boolean replace) {
+        if (replace)
+            return searchIndex.put(TEST_REQUEST, (Long) row[0], (String) row[1], (String) row[2], (String) row[3]);
+        return searchIndex.putIfAbsent(TEST_REQUEST, (Long) row[0], (String) row[1], (String) row[2], (String) row[3]);
+    }
+
+    private boolean putUser(Object[] row, boolean replace) {
+        Long id = (Long) row[0];
+        if (row[5] == AccountStatus.DELETED) {
+            searchIndex.remove(USER, id);
+            return true;
+        }
+
+        String name = (null == row[1] ? "" : row[1]) + " " + (null == row[2] ? "" : row[2]);
+        if (replace)
+            return searchIndex.put(USER, id, name.trim(), (String) row[3], (String) row[4]);
+        return searchIndex.putIfAbsent(USER, id, name.trim(), (String) row[3], (String) row[4]);
+    }
+
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(TestRequestStatusChangedEvent event) {
+        if (null != event.getFrom())
+            return;
+
+        TestRequest testRequest = event.getTestRequest();
+        searchIndex.put(TEST_REQUEST, testRequest.getRequestId(), testRequest.getName(), testRequest.getPhoneNumber(), testRequest.getEmail());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserUpdated(UserUpdatedEvent event) {
+        userRepository.findSearchFieldsByUserNameIn(event.getUserNames()).forEach(row -> putUser(row, true));
+    }
+
+
+    public Slice<SearchHit> search(String query, SearchIndex.Type type, int page, int size) {
+
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE)
+            throw new AppException("Page size should be between 1 and " + MAX_PAGE_SIZE);
+
+        return searchIndex.search(query, type, page, size);
+    }
+
+    public SearchIndexStatus getStatus() {
+        SearchIndexStatus status = searchIndex.getStatus();
+        status.setBuilt(built);
+        return status;
+    }
+
+}
@@ -0,0 +1,35 @@
+package org.upgrad.upstac.shared;
+
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.HibernateProxyHelper;
+
+import javax.persistence.MappedSuperclass;
+
+//Entities are equal when persisted with the same id, and hash by class alone so the hash does not change when
+//the id is assigned on save. Only ids are compared, so neither loads associations or initializes a proxy.
+@MappedSuperclass
+public abstract class PersistentEntity {
+
+    //The id, null until saved; not a getter, so it is neither mapped nor serialized
+    protected abstract Object identity();
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (null == o || HibernateProxyHelper.getClassWithoutInitializingProxy(o) != getClass())
+            return false;
+
+        Object id = identity();
+        Object otherId = o instanceof HibernateProxy
+                ? ((HibernateProxy) o).getHibernateLazyInitializer().getIdentifier()
+                : ((PersistentEntity) o).identity();
+        return null != id && id.equals(otherId);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+}
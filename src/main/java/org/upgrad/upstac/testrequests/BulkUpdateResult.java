@@ -0,0 +1,27 @@
+package org.upgrad.upstac.testrequests;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+//Outcome of a bulk update: the requests that moved, and why each of the others did not
+@Getter
+public class BulkUpdateResult {
+
+    private final List<TestRequest> updated = new ArrayList<>();
+
+    private final Map<Long, String> errors = new TreeMap<>();
+
+
+    public void addError(Long id, String message) {
+        errors.put(id, message);
+    }
+
+    public void addUpdated(List<TestRequest> testRequests) {
+        updated.addAll(testRequests);
+    }
+
+}
@@ -0,0 +1,240 @@
+package org.upgrad.upstac.testrequests;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.upgrad.upstac.testrequests.archive.TestRequestArchiveService;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.UserUpdatedEvent;
+import org.upgrad.upstac.users.roles.UserRole;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+//The serialized JSON of completed requests, which never change once completed, kept least recently used first
+//within a byte budget. The JSON embeds the patient, tester and doctor, so saving any of them drops their entries.
+//Requests are spread by id over segments, each its own LRU with a share of the budget and a lock of its own,
+//so concurrent hits on different segments do not wait for each other.
+@Service
+public class CompletedTestRequestCache {
+
+    static final int SEGMENTS = 16;
+
+    @Value("${cache.completed-requests.max-bytes:33554432}")
+    private long maxBytes;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestRequestRepository testRequestRepository;
+
+    @Autowired
+    private TestRequestArchiveService testRequestArchiveService;
+
+    private Segment[] segments;
+
+    //Bumped by every user eviction, so JSON serialized before one is not cached after it
+    private final AtomicLong userGeneration = new AtomicLong();
+
+    private static final Logger log = LoggerFactory.getLogger(CompletedTestRequestCache.class);
+
+
+    static class Entry {
+        final byte[] json;
+        final Map<UserRole, String> userNames;
+
+        Entry(byte[] json, Map<UserRole, String> userNames) {
+            this.json = json;
+            this.userNames = userNames;
+        }
+
+        boolean isVisibleTo(String userName, UserRole role) {
+            return role == UserRole.GOVERNMENT_AUTHORITY || Objects.equals(userNames.get(role), userName);
+        }
+    }
+
+    class Segment {
+        private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+        private final long maxBytes;
+        private long bytes;
+
+        Segment(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized Entry get(Long id) {
+            return entries.get(id);
+        }
+
+        //The generation is checked under the lock, so an entry serialized before a user eviction is either
+        //refused here or removed by the eviction's pass over this segment
+        synchronized void put(Long id, Entry entry, long generation) {
+            if (generation != userGeneration.get() || entry.json.length > maxBytes)
+                return;
+
+            Entry previous = entries.put(id, entry);
+            bytes += entry.json.length - (null == previous ? 0 : previous.json.length);
+
+            Iterator<Entry> leastRecentlyUsed = entries.values().iterator();
+            while (bytes > maxBytes && leastRecentlyUsed.hasNext()) {
+                bytes -= leastRecentlyUsed.next().json.length;
+                leastRecentlyUsed.remove();
+            }
+        }
+
+        synchronized void removeFor(Collection<String> userNames) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (!Collections.disjoint(entry.userNames.values(), userNames)) {
+                    bytes -= entry.json.length;
+                    iterator.remove();
+                }
+            }
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+
+
+    @PostConstruct
+    void createSegments() {
+        segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++)
+            segments[i] = new Segment(maxBytes / SEGMENTS);
+    }
+
+    private Segment segmentFor(Long id) {
+        return segments[Math.floorMod(Long.hashCode(id), SEGMENTS)];
+    }
+
+    byte[] get(Long id) {
+        Entry entry = segmentFor(id).get(id);
+        return null == entry ? null : entry.json;
+    }
+
+    //Same visibility as TestRequestQueryService.findTestRequestFor; null when not cached or not visible
+    public byte[] get(Long id, String userName, UserRole role) {
+        Entry entry = segmentFor(id).get(id);
+        return null == entry || !entry.isVisibleTo(userName, role) ? null : entry.json;
+    }
+
+    public void put(TestRequest testRequest) {
+        if (testRequest.getStatus() != RequestStatus.COMPLETED)
+            return;
+
+        long generation = userGeneration.get();
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(testRequest);
+            put(testRequest.getRequestId(), json, getUserNames(testRequest), generation);
+        } catch (JsonProcessingException e) {
+            log.warn("unable to cache request " + testRequest.getRequestId(), e);
+        }
+    }
+
+    void put(Long id, byte[] json, Map<UserRole, String> userNames, long generation) {
+        segmentFor(id).put(id, new Entry(json, userNames), generation);
+    }
+
+    private static Map<UserRole, String> getUserNames(TestRequest testRequest) {
+        Map<UserRole, String> userNames = new EnumMap<>(UserRole.class);
+        addUserName(userNames, UserRole.USER, testRequest.getCreatedBy());
+        if (null != testRequest.getLabResult())
+            addUserName(userNames, UserRole.TESTER, testRequest.getLabResult().getTester());
+        if (null != testRequest.getConsultation())
+            addUserName(userNames, UserRole.DOCTOR, testRequest.getConsultation().getDoctor());
+        return userNames;
+    }
+
+    private static void addUserName(Map<UserRole, String> userNames, UserRole role, User user) {
+        if (null != user)
+            userNames.put(role, user.getUserName());
+    }
+
+
+    //The request list of a patient as a JSON array: archived requests first, then completed requests copied
+    //from the cache, reading and serializing only the others
+    @Transactional(readOnly = true)
+    public byte[] getHistoryJson(User user) throws JsonProcessingException {
+
+        List<Long> ids = new ArrayList<>();
+        Map<Long, byte[]> json = new HashMap<>();
+        for (Object[] row : testRequestRepository.findIdAndStatusByCreatedBy(user)) {
+            Long id = (Long) row[0];
+            ids.add(id);
+            if (row[1] == RequestStatus.COMPLETED) {
+                byte[] cached = get(id);
+                if (null != cached)
+                    json.put(id, cached);
+            }
+        }
+
+        List<Long> missing = new ArrayList<>(ids);
+        missing.removeAll(json.keySet());
+        if (!missing.isEmpty()) {
+            long generation = userGeneration.get();
+            for (TestRequest testRequest : testRequestRepository.findByRequestIdIn(missing)) {
+                byte[] serialized = objectMapper.writeValueAsBytes(testRequest);
+                json.put(testRequest.getRequestId(), serialized);
+                if (testRequest.getStatus() == RequestStatus.COMPLETED)
+                    put(testRequest.getRequestId(), serialized, getUserNames(testRequest), generation);
+            }
+        }
+
+        List<byte[]> elements = new ArrayList<>(testRequestArchiveService.findDocumentsFor(user));
+        for (Long id : ids)
+            if (json.containsKey(id))
+                elements.add(json.get(id));
+
+        ByteArrayOutputStream array = new ByteArrayOutputStream();
+        array.write('[');
+        for (byte[] element : elements) {
+            if (array.size() > 1)
+                array.write(',');
+            array.write(element, 0, element.length);
+        }
+        array.write(']');
+        return array.toByteArray();
+    }
+
+
+    //Best effort: outside a web request the lab result may no longer be loadable, and the first read caches it instead
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(TestRequestStatusChangedEvent event) {
+        if (event.getTo() != RequestStatus.COMPLETED)
+            return;
+
+        try {
+            put(event.getTestRequest());
+        } catch (RuntimeException e) {
+            log.debug("request " + event.getRequestId() + " not cached on completion", e);
+        }
+    }
+
+    @EventListener
+    public void onUserUpdated(UserUpdatedEvent event) {
+        userGeneration.incrementAndGet();
+        for (Segment segment : segments)
+            segment.removeFor(event.getUserNames());
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments)
+            size += segment.size();
+        return size;
+    }
+
+}
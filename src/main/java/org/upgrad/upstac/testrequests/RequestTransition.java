@@ -0,0 +1,52 @@
+package org.upgrad.upstac.testrequests;
+
+import org.upgrad.upstac.testrequests.consultation.CreateConsultationRequest;
+import org.upgrad.upstac.testrequests.lab.CreateLabResult;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.roles.UserRole;
+
+import static org.upgrad.upstac.testrequests.RequestStatus.*;
+
+//The allowed status changes of a TestRequest, who may make them and what each one carries
+public enum RequestTransition {
+
+    ASSIGN_FOR_LAB_TEST(INITIATED, LAB_TEST_IN_PROGRESS, UserRole.TESTER, Void.class),
+    UPDATE_LAB_TEST(LAB_TEST_IN_PROGRESS, LAB_TEST_COMPLETED, UserRole.TESTER, CreateLabResult.class),
+    ASSIGN_FOR_CONSULTATION(LAB_TEST_COMPLETED, DIAGNOSIS_IN_PROCESS, UserRole.DOCTOR, Void.class),
+    UPDATE_CONSULTATION(DIAGNOSIS_IN_PROCESS, COMPLETED, UserRole.DOCTOR, CreateConsultationRequest.class);
+
+    private final RequestStatus from;
+    private final RequestStatus to;
+    private final UserRole role;
+    private final Class<?> payloadType;
+
+    RequestTransition(RequestStatus from, RequestStatus to, UserRole role, Class<?> payloadType) {
+        this.from = from;
+        this.to = to;
+        this.role = role;
+        this.payloadType = payloadType;
+    }
+
+    public RequestStatus getFrom() {
+        return from;
+    }
+
+    public RequestStatus getTo() {
+        return to;
+    }
+
+    public UserRole getRole() {
+        return role;
+    }
+
+    public boolean isAllowedFor(User user) {
+        return user.doesUserHasRole(role.name());
+    }
+
+    public boolean isValidPayload(Object payload) {
+        if (payloadType == Void.class)
+            return payload == null;
+        return payloadType.isInstance(payload);
+    }
+
+}
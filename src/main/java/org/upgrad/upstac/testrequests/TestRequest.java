@@ -1,17 +1,31 @@
 package org.upgrad.upstac.testrequests;
 
-import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.LazyGroup;
+import org.hibernate.annotations.LazyToOne;
+import org.hibernate.annotations.LazyToOneOption;
+import org.upgrad.upstac.shared.PersistentEntity;
 import org.upgrad.upstac.testrequests.consultation.Consultation;
 import org.upgrad.upstac.testrequests.lab.LabResult;
 import org.upgrad.upstac.users.User;
 import org.upgrad.upstac.users.models.Gender;
 
 import javax.persistence.*;
+import java.time.Instant;
 import java.time.LocalDate;
 
-@Data
+@Getter
+@Setter
+@ToString
 @Entity
-public class TestRequest {
+//Tester queues are one status and a set of pin codes, read in id order; the consultation queue is read most severe first
+@Table(indexes = {
+        @Index(name = "idx_test_request_status_pin_code", columnList = "status,pinCode,requestId"),
+        @Index(name = "idx_test_request_priority", columnList = "status,priorityScore DESC,requestId")
+})
+public class TestRequest extends PersistentEntity {
 
 
     @Id
@@ -19,6 +33,7 @@ public class TestRequest {
     Long requestId;
 
     @ManyToOne
+    @ToString.Exclude
     private User createdBy;
 
     private LocalDate created=LocalDate.now();
@@ -34,10 +49,30 @@ public class TestRequest {
     private String phoneNumber;
     private Integer pinCode;
 
-    @OneToOne(mappedBy="request")
+    //SeverityScore of the lab result, set with it; null until then
+    private Integer priorityScore;
+
+    //When the request entered its current status, in milliseconds; null for requests last changed before it was kept
+    @Column(columnDefinition = "datetime(3)")
+    private Instant statusChangedAt;
+
+    //Lazy through bytecode enhancement: a mappedBy one-to-one cannot be proxied, so without it both rows are read with every request.
+    //Separate groups so reading one does not read the other
+    @OneToOne(mappedBy="request", fetch = FetchType.LAZY)
+    @LazyToOne(LazyToOneOption.NO_PROXY)
+    @LazyGroup("consultation")
+    @ToString.Exclude
     Consultation consultation;
 
-    @OneToOne(mappedBy="request")
+    @OneToOne(mappedBy="request", fetch = FetchType.LAZY)
+    @LazyToOne(LazyToOneOption.NO_PROXY)
+    @LazyGroup("labResult")
+    @ToString.Exclude
     LabResult labResult;
 
+    @Override
+    protected Object identity() {
+        return getRequestId();
+    }
+
 }
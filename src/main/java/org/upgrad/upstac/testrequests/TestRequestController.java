@@ -1,18 +1,23 @@
 package org.upgrad.upstac.testrequests;
 
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 import org.upgrad.upstac.config.security.UserLoggedInService;
 import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.testrequests.archive.TestRequestArchiveService;
 import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.roles.UserRole;
 
-import java.util.List;
 import java.util.Optional;
 
 import static org.upgrad.upstac.exception.UpgradResponseStatusException.asBadRequest;
@@ -33,6 +38,15 @@ public class TestRequestController {
     @Autowired
     private TestRequestQueryService testRequestQueryService;
 
+    @Autowired
+    private TestRequestArchiveService testRequestArchiveService;
+
+    @Autowired
+    private TestRequestVersionService testRequestVersionService;
+
+    @Autowired
+    private CompletedTestRequestCache completedTestRequestCache;
+
 
     @PostMapping("/api/testrequests")
     public TestRequest createRequest(@RequestBody CreateTestRequest testRequest) {
@@ -46,22 +60,48 @@ public class TestRequestController {
 
     }
 
+    //Completed requests are copied from CompletedTestRequestCache instead of being read and serialized again
     @GetMapping("/api/testrequests")
-    public List<TestRequest> requestHistory() {
+    public ResponseEntity<byte[]> requestHistory(WebRequest webRequest) throws JsonProcessingException {
+
+        if (webRequest.checkNotModified(testRequestVersionService.getETagForUser(userLoggedInService.getLoggedInUserName())))
+            return null;
 
         User user = userLoggedInService.getLoggedInUser();
-        return testRequestService.getHistoryFor(user);
+        return asJson(completedTestRequestCache.getHistoryJson(user));
 
 
     }
 
     @GetMapping("/api/testrequests/{id}")
-    public Optional<TestRequest> getById(@PathVariable Long id) {
+    public ResponseEntity<?> getById(@PathVariable Long id) {
+
+        String userName = userLoggedInService.getLoggedInUserName();
+        UserRole role = userLoggedInService.getLoggedInUserRole();
+
+        byte[] cached = completedTestRequestCache.get(id, userName, role);
+        if (null != cached)
+            return asJson(cached);
 
+        try {
+            Optional<TestRequest> testRequest = testRequestQueryService.findTestRequestFor(userName, role, id);
+            if (!testRequest.isPresent()) {
+                Optional<byte[]> archived = testRequestArchiveService.findDocumentFor(userName, role, id);
+                if (archived.isPresent())
+                    return asJson(archived.get());
+            }
+
+            testRequest.ifPresent(completedTestRequestCache::put);
+            return ResponseEntity.ok(testRequest);
+        } catch (AppException e) {
+            throw asBadRequest(e.getMessage());
+        }
 
-        return testRequestQueryService.getTestRequestById(id);
 
+    }
 
+    private ResponseEntity<byte[]> asJson(byte[] json) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
     }
 
 
@@ -3,23 +3,29 @@ package org.upgrad.upstac.testrequests;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 import org.upgrad.upstac.exception.AppException;
-import org.upgrad.upstac.testrequests.consultation.Consultation;
-import org.upgrad.upstac.testrequests.consultation.ConsultationRepository;
-import org.upgrad.upstac.testrequests.lab.LabResult;
 import org.upgrad.upstac.testrequests.lab.LabResultRepository;
 import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.roles.UserRole;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
+//Only reads, so its transactions go to a replica when replicas are configured
 @Service
 @Validated
+@Transactional(readOnly = true)
 public class TestRequestQueryService {
 
+    static final int MAX_LOW_OXYGEN_SIZE = 500;
+
     @Autowired
     private TestRequestRepository testRequestRepository;
 
@@ -27,10 +33,6 @@ public class TestRequestQueryService {
     @Autowired
     private LabResultRepository labResultRepository;
 
-
-    @Autowired
-    private ConsultationRepository consultationRepository;
-
     private static Logger logger = LoggerFactory.getLogger(TestRequestQueryService.class);
 
 
@@ -53,71 +55,92 @@ public class TestRequestQueryService {
 
     }
 
+    //Only the size most severe, when given
+    public List<TestRequest> findByPriority(RequestStatus requestStatus, Integer size) {
 
+        if (null != size && size < 1)
+            throw new AppException("Invalid size");
+
+        Pageable pageable = null == size ? Pageable.unpaged() : PageRequest.of(0, size);
+        return testRequestRepository.findByStatusOrderByPriorityScoreDescRequestId(requestStatus, pageable);
+    }
+
+    public List<TestRequest> findBy(RequestStatus requestStatus, Collection<Integer> pinCodes) {
+        return testRequestRepository.findByStatusAndPinCodeInOrderByRequestId(requestStatus, pinCodes);
+    }
 
-    public List<TestRequest> findByTester(User user) {
 
-        return  labResultRepository.findByTester(user)
-                .stream()
-                .map(LabResult::getRequest)
-                .collect(Collectors.toList());
 
+    public List<TestRequest> findByTester(User user) {
+        return testRequestRepository.findByTester(user);
     }
 
     public List<TestRequest> findByDoctor(User user) {
-        return  consultationRepository.findByDoctor(user)
-                .stream()
-                .map(Consultation::getRequest)
-                .collect(Collectors.toList());
+        return testRequestRepository.findByDoctor(user);
     }
 
 
-    public Optional<TestRequest> findTestRequestForUserByID(User user,Long id) {
+    //Lowest saturation first, at most size of them
+    public List<TestRequest> findWithOxygenBelow(Integer below, Integer hours, Integer size) {
+
+        if (null == below || null == hours || hours <= 0)
+            throw new AppException("Invalid oxygen level or hours");
+        if (null == size || size < 1 || size > MAX_LOW_OXYGEN_SIZE)
+            throw new AppException("size should be between 1 and " + MAX_LOW_OXYGEN_SIZE);
+
+        return labResultRepository.findRequestsWithOxygenBelow(below, LocalDateTime.now().minusHours(hours), PageRequest.of(0, size));
+    }
 
 
-        logger.info("findTestRequestForUserByID" + user.getRoles().toString());
+    public Optional<TestRequest> findTestRequestForUserByID(User user,Long id) {
 
         if(user.doesRoleIsUser())
-            return  findByUserAndID(user,id);
+            return  findTestRequestFor(user.getUserName(), UserRole.USER, id);
         else if(user.doesRoleIsTester())
-            return findByTesterAndID(user,id);
+            return findTestRequestFor(user.getUserName(), UserRole.TESTER, id);
         else if(user.doesRoleIsDoctor())
-            return findByDoctorAndID(user,id);
+            return findTestRequestFor(user.getUserName(), UserRole.DOCTOR, id);
         else if(user.doesRoleIsAuthority())
-            return testRequestRepository.findByRequestId(id);
+            return findTestRequestFor(user.getUserName(), UserRole.GOVERNMENT_AUTHORITY, id);
         else
             throw new AppException("Invalid Role");
 
     }
 
+    //One query per role that only returns the request when the user may see it
+    public Optional<TestRequest> findTestRequestFor(String userName, UserRole role, Long id) {
 
+        if (null == role)
+            throw new AppException("Invalid Role");
 
-    public Optional<TestRequest> findByDoctorAndID(User doctor,Long id) {
-
-
-        return  testRequestRepository.findByRequestId(id)
-                .filter(testRequest -> consultationRepository.findByDoctorAndRequest(doctor,testRequest).isPresent());
-
+        switch (role) {
+            case USER:
+                return testRequestRepository.findByRequestIdAndCreatedByUserName(id, userName);
+            case TESTER:
+                return testRequestRepository.findByRequestIdAndTesterUserName(id, userName);
+            case DOCTOR:
+                return testRequestRepository.findByRequestIdAndDoctorUserName(id, userName);
+            default:
+                return testRequestRepository.findByRequestId(id);
+        }
     }
-    public Optional<TestRequest> findByTesterAndID(User tester,Long id) {
-
-
-
-
-        return  testRequestRepository.findByRequestId(id)
-                .filter(testRequest -> labResultRepository.findByTesterAndRequest(tester,testRequest).isPresent());
 
 
 
+    public Optional<TestRequest> findByDoctorAndID(User doctor,Long id) {
 
+        return findTestRequestFor(doctor.getUserName(), UserRole.DOCTOR, id);
 
+    }
+    public Optional<TestRequest> findByTesterAndID(User tester,Long id) {
 
+        return findTestRequestFor(tester.getUserName(), UserRole.TESTER, id);
 
     }
 
     public Optional<TestRequest> findByUserAndID(User user,Long id) {
 
-        return  testRequestRepository.findByCreatedByAndRequestId(user,id);
+        return findTestRequestFor(user.getUserName(), UserRole.USER, id);
 
     }
 
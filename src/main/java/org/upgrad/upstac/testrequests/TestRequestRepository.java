@@ -1,8 +1,20 @@
 package org.upgrad.upstac.testrequests;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.upgrad.upstac.testrequests.consultation.Consultation;
+import org.upgrad.upstac.testrequests.lab.LabResult;
 import org.upgrad.upstac.users.User;
 
+import javax.persistence.LockModeType;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,9 +22,81 @@ import java.util.Optional;
 public interface TestRequestRepository extends JpaRepository<TestRequest,Long> {
 
 
-	Optional<TestRequest> findByRequestId(Long id);
+	//Requests that are returned as JSON or change status read their lab result and consultation in the same row,
+	//and withAssociations sets them. A fetch join is not enough: the enhanced request still reports both as not
+	//loaded, and reading one that does not exist would query for it again.
+	String WITH_ASSOCIATIONS = "select t, l, c from TestRequest t left join t.labResult l left join t.consultation c ";
 
-	List<TestRequest> findByCreatedBy(User user);
+	static List<TestRequest> withAssociations(List<Object[]> rows) {
+		List<TestRequest> testRequests = new ArrayList<>(rows.size());
+		for (Object[] row : rows) {
+			TestRequest testRequest = (TestRequest) row[0];
+			testRequest.setLabResult((LabResult) row[1]);
+			testRequest.setConsultation((Consultation) row[2]);
+			testRequests.add(testRequest);
+		}
+		return testRequests;
+	}
+
+
+	@Query(WITH_ASSOCIATIONS + "where t.requestId = :id")
+	List<Object[]> findRowsByRequestId(@Param("id") Long id);
+
+	default Optional<TestRequest> findByRequestId(Long id) {
+		return withAssociations(findRowsByRequestId(id)).stream().findFirst();
+	}
+
+	@Query(WITH_ASSOCIATIONS + "where t.requestId = :id and t.createdBy.userName = :userName")
+	List<Object[]> findRowsByRequestIdAndCreatedByUserName(@Param("id") Long id, @Param("userName") String userName);
+
+	default Optional<TestRequest> findByRequestIdAndCreatedByUserName(Long id, String userName) {
+		return withAssociations(findRowsByRequestIdAndCreatedByUserName(id, userName)).stream().findFirst();
+	}
+
+	@Query(WITH_ASSOCIATIONS + "where t.requestId = :id and l.tester.userName = :userName")
+	List<Object[]> findRowsByRequestIdAndTesterUserName(@Param("id") Long id, @Param("userName") String userName);
+
+	default Optional<TestRequest> findByRequestIdAndTesterUserName(Long id, String userName) {
+		return withAssociations(findRowsByRequestIdAndTesterUserName(id, userName)).stream().findFirst();
+	}
+
+	@Query(WITH_ASSOCIATIONS + "where t.requestId = :id and c.doctor.userName = :userName")
+	List<Object[]> findRowsByRequestIdAndDoctorUserName(@Param("id") Long id, @Param("userName") String userName);
+
+	default Optional<TestRequest> findByRequestIdAndDoctorUserName(Long id, String userName) {
+		return withAssociations(findRowsByRequestIdAndDoctorUserName(id, userName)).stream().findFirst();
+	}
+
+	@Query(WITH_ASSOCIATIONS + "where t.createdBy = :user order by t.requestId")
+	List<Object[]> findRowsByCreatedBy(@Param("user") User user);
+
+	default List<TestRequest> findByCreatedBy(User user) {
+		return withAssociations(findRowsByCreatedBy(user));
+	}
+
+	@Query(WITH_ASSOCIATIONS + "where l.tester = :user order by t.requestId")
+	List<Object[]> findRowsByTester(@Param("user") User user);
+
+	default List<TestRequest> findByTester(User user) {
+		return withAssociations(findRowsByTester(user));
+	}
+
+	@Query(WITH_ASSOCIATIONS + "where c.doctor = :user order by t.requestId")
+	List<Object[]> findRowsByDoctor(@Param("user") User user);
+
+	default List<TestRequest> findByDoctor(User user) {
+		return withAssociations(findRowsByDoctor(user));
+	}
+
+	@Query("select t.requestId, t.status from TestRequest t where t.createdBy = :user order by t.requestId")
+	List<Object[]> findIdAndStatusByCreatedBy(@Param("user") User user);
+
+	@Query(WITH_ASSOCIATIONS + "where t.requestId in :ids")
+	List<Object[]> findRowsByRequestIdIn(@Param("ids") Collection<Long> ids);
+
+	default List<TestRequest> findByRequestIdIn(Collection<Long> ids) {
+		return withAssociations(findRowsByRequestIdIn(ids));
+	}
 
 	Optional<TestRequest> findByRequestIdAndStatus(Long id,RequestStatus status);
 	Optional<TestRequest> findByCreatedByAndRequestId(User user,Long id);
@@ -29,7 +113,69 @@ public interface TestRequestRepository extends JpaRepository<TestRequest,Long> {
 	
 	List<TestRequest> findByName(String name);
 
-	List<TestRequest> findByStatus(RequestStatus status);
+	//Oldest first. Locked, so a node running the job at the same time blocks until the chunk is archived, then
+	//reads on from what is left; the dialect has no SKIP LOCKED for nodes to take different chunks in parallel.
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query(WITH_ASSOCIATIONS + "where t.status = :status and c.updatedOn < :before order by t.requestId")
+	List<Object[]> findRowsCompletedBefore(@Param("status") RequestStatus status, @Param("before") LocalDate before, Pageable pageable);
+
+	default List<TestRequest> findCompletedBefore(RequestStatus status, LocalDate before, Pageable pageable) {
+		return withAssociations(findRowsCompletedBefore(status, before, pageable));
+	}
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("delete from TestRequest t where t.requestId in :ids")
+	int deleteByRequestIds(@Param("ids") Collection<Long> ids);
+
+	//Pages of the searchable fields, newest first from before
+	@Query("select t.requestId, t.name, t.phoneNumber, t.email, t.created from TestRequest t where t.requestId < :before order by t.requestId desc")
+	List<Object[]> findSearchFieldsBefore(@Param("before") Long before, Pageable pageable);
+
+	//Pages of the searchable fields, oldest first from after
+	@Query("select t.requestId, t.name, t.phoneNumber, t.email, t.created from TestRequest t where t.requestId > :after order by t.requestId")
+	List<Object[]> findSearchFieldsAfter(@Param("after") Long after, Pageable pageable);
+
+	@Query(WITH_ASSOCIATIONS + "where t.status = :status order by t.requestId")
+	List<Object[]> findRowsByStatus(@Param("status") RequestStatus status);
+
+	default List<TestRequest> findByStatus(RequestStatus status) {
+		return withAssociations(findRowsByStatus(status));
+	}
+
+	//Most severe first, oldest first among equals
+	@Query(WITH_ASSOCIATIONS + "where t.status = :status order by t.priorityScore desc, t.requestId")
+	List<Object[]> findRowsByStatusOrderByPriority(@Param("status") RequestStatus status, Pageable pageable);
+
+	default List<TestRequest> findByStatusOrderByPriorityScoreDescRequestId(RequestStatus status, Pageable pageable) {
+		return withAssociations(findRowsByStatusOrderByPriority(status, pageable));
+	}
+
+	@Query("select t.requestId from TestRequest t where t.status = :status order by t.priorityScore desc, t.requestId")
+	List<Long> findRequestIdsByPriority(@Param("status") RequestStatus status, Pageable pageable);
+
+	@Query(WITH_ASSOCIATIONS + "where t.status = :status and t.pinCode in :pinCodes order by t.requestId")
+	List<Object[]> findRowsByStatusAndPinCodeIn(@Param("status") RequestStatus status, @Param("pinCodes") Collection<Integer> pinCodes);
+
+	default List<TestRequest> findByStatusAndPinCodeInOrderByRequestId(RequestStatus status, Collection<Integer> pinCodes) {
+		return withAssociations(findRowsByStatusAndPinCodeIn(status, pinCodes));
+	}
+
+	//Transitions set or read both associations, and so does the status change event. Rows are locked in id order,
+	//so overlapping batches wait for each other instead of deadlocking.
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query(WITH_ASSOCIATIONS + "where t.requestId in :ids and t.status = :status order by t.requestId")
+	List<Object[]> findRowsByRequestIdInAndStatus(@Param("ids") Collection<Long> ids, @Param("status") RequestStatus status);
+
+	default List<TestRequest> findByRequestIdInAndStatus(Collection<Long> ids, RequestStatus status) {
+		return withAssociations(findRowsByRequestIdInAndStatus(ids, status));
+	}
+
+	@Query("select t.status, count(t) from TestRequest t group by t.status")
+	List<Object[]> countByStatus();
+
+	@Modifying
+	@Query("update TestRequest t set t.status = :to, t.statusChangedAt = :at where t.requestId in :ids and t.status = :from")
+	int updateStatus(@Param("ids") Collection<Long> ids, @Param("from") RequestStatus from, @Param("to") RequestStatus to, @Param("at") Instant at);
 	
 
 }
@@ -3,11 +3,15 @@ package org.upgrad.upstac.testrequests;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.upgrad.upstac.exception.AppException;
 import org.upgrad.upstac.users.User;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Collections;
 import java.util.List;
 
 @Service
@@ -16,12 +20,18 @@ public class TestRequestService {
     @Autowired
     private TestRequestRepository testRequestRepository;
 
+    @Autowired
+    private TestRequestVersionService testRequestVersionService;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
 
 
     private static Logger logger = LoggerFactory.getLogger(TestRequestService.class);
 
 
 
+    @Transactional
     public TestRequest createTestRequestFrom(User user,CreateTestRequest createTestRequest) {
 
         validateExistingRequestsNotPresentWithSameDetails(createTestRequest);
@@ -31,6 +41,7 @@ public class TestRequestService {
         testRequest.setName(createTestRequest.getName());
         testRequest.setCreated(LocalDate.now());
         testRequest.setStatus(RequestStatus.INITIATED);
+        testRequest.setStatusChangedAt(Instant.now());
         testRequest.setAge(createTestRequest.getAge());
         testRequest.setEmail(createTestRequest.getEmail());
         testRequest.setPhoneNumber(createTestRequest.getPhoneNumber());
@@ -39,7 +50,11 @@ public class TestRequestService {
         testRequest.setGender(createTestRequest.getGender());
 
         testRequest.setCreatedBy(user);
-        return testRequestRepository.save(testRequest);
+        TestRequest result = testRequestRepository.save(testRequest);
+        TestRequestStatusChangedEvent event = new TestRequestStatusChangedEvent(testRequest, null, RequestStatus.INITIATED, user, null, testRequest.getStatusChangedAt());
+        testRequestVersionService.bump(Collections.singletonList(event));
+        applicationEventPublisher.publishEvent(event);
+        return result;
     }
 
     public void validateExistingRequestsNotPresentWithSameDetails(CreateTestRequest createTestRequest) {
@@ -54,11 +69,13 @@ public class TestRequestService {
 
     }
 
+    @Transactional(readOnly = true)
     public List<TestRequest> findByStatus(RequestStatus requestStatus){
 
         return testRequestRepository.findByStatus(requestStatus);
     }
 
+    @Transactional(readOnly = true)
     public List<TestRequest> getHistoryFor(User loggedInUser){
 
         return testRequestRepository.findByCreatedBy(loggedInUser);
@@ -0,0 +1,55 @@
+package org.upgrad.upstac.testrequests;
+
+import lombok.Getter;
+import org.upgrad.upstac.users.User;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+
+//Published for every status change of a TestRequest, including its creation (from is null then).
+//Everything listeners need after commit is captured here, while the request is still attached.
+@Getter
+public class TestRequestStatusChangedEvent {
+
+    private final TestRequest testRequest;
+
+    private final RequestStatus from;
+
+    private final RequestStatus to;
+
+    private final User changedBy;
+
+    //When the request entered from, when known, and when it left it
+    private final Instant fromSince;
+
+    private final Instant happenedAt;
+
+    private final Set<String> involvedUserNames = new HashSet<>();
+
+
+    public TestRequestStatusChangedEvent(TestRequest testRequest, RequestStatus from, RequestStatus to, User changedBy, Instant fromSince, Instant happenedAt) {
+        this.testRequest = testRequest;
+        this.from = from;
+        this.to = to;
+        this.changedBy = changedBy;
+        this.fromSince = fromSince;
+        this.happenedAt = happenedAt;
+
+        addUserName(testRequest.getCreatedBy());
+        if (null != testRequest.getLabResult())
+            addUserName(testRequest.getLabResult().getTester());
+        if (null != testRequest.getConsultation())
+            addUserName(testRequest.getConsultation().getDoctor());
+    }
+
+    private void addUserName(User user) {
+        if (null != user && null != user.getUserName())
+            involvedUserNames.add(user.getUserName());
+    }
+
+    public Long getRequestId() {
+        return testRequest.getRequestId();
+    }
+
+}
@@ -0,0 +1,141 @@
+package org.upgrad.upstac.testrequests;
+
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.testrequests.consultation.ConsultationService;
+import org.upgrad.upstac.testrequests.consultation.CreateConsultationRequest;
+import org.upgrad.upstac.testrequests.flow.TestRequestFlowService;
+import org.upgrad.upstac.testrequests.lab.CreateLabResult;
+import org.upgrad.upstac.testrequests.lab.LabResultService;
+import org.upgrad.upstac.testrequests.positivity.DailyPositivityService;
+import org.upgrad.upstac.users.User;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+
+//Applies a RequestTransition to a batch of requests: one locked select, one set-based status update, one
+//side-entity batch and one flow batch, whatever the batch size, and a single flush at commit.
+@Service
+public class TestRequestTransitionService {
+
+    public static final int MAX_BATCH_SIZE = 500;
+
+    @Autowired
+    private TestRequestRepository testRequestRepository;
+
+    @Autowired
+    private TestRequestFlowService testRequestFlowService;
+
+    @Autowired
+    private LabResultService labResultService;
+
+    @Autowired
+    private ConsultationService consultationService;
+
+    @Autowired
+    private DailyPositivityService dailyPositivityService;
+
+    @Autowired
+    private TestRequestVersionService testRequestVersionService;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Map<RequestTransition, TransitionEffect> effects = new EnumMap<>(RequestTransition.class);
+
+    private static Logger logger = LoggerFactory.getLogger(TestRequestTransitionService.class);
+
+
+    //What each transition writes besides the status and the flow log
+    interface TransitionEffect {
+        void apply(List<TestRequest> testRequests, Map<Long, ?> payloads, User user);
+    }
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    void registerEffects() {
+        effects.put(RequestTransition.ASSIGN_FOR_LAB_TEST,
+                (testRequests, payloads, tester) -> labResultService.assignForLabTest(testRequests, tester));
+        effects.put(RequestTransition.UPDATE_LAB_TEST,
+                (testRequests, payloads, tester) -> {
+                    labResultService.updateLabTest(testRequests, (Map<Long, CreateLabResult>) payloads);
+                    dailyPositivityService.record(testRequests);
+                });
+        effects.put(RequestTransition.ASSIGN_FOR_CONSULTATION,
+                (testRequests, payloads, doctor) -> consultationService.assignForConsultation(testRequests, doctor));
+        effects.put(RequestTransition.UPDATE_CONSULTATION,
+                (testRequests, payloads, doctor) -> consultationService.updateConsultation(testRequests, (Map<Long, CreateConsultationRequest>) payloads));
+    }
+
+
+    @Transactional
+    public List<TestRequest> apply(RequestTransition transition, Collection<Long> ids, User user) {
+        Map<Long, Object> payloads = new HashMap<>();
+        ids.forEach(id -> payloads.put(id, null));
+        return apply(transition, payloads, user);
+    }
+
+    //Requests that are not in the transition's source status are skipped; the result holds the ones that moved
+    @Transactional
+    public List<TestRequest> apply(RequestTransition transition, Map<Long, ?> payloads, User user) {
+
+        if (!transition.isAllowedFor(user))
+            throw new AppException("Invalid Role");
+
+        if (payloads.size() > MAX_BATCH_SIZE)
+            throw new AppException("A batch can have at most " + MAX_BATCH_SIZE + " requests");
+
+        if (!payloads.values().stream().allMatch(transition::isValidPayload))
+            throw new AppException("Invalid data for " + transition);
+
+        if (payloads.isEmpty())
+            return Collections.emptyList();
+
+        List<TestRequest> testRequests = testRequestRepository.findByRequestIdInAndStatus(payloads.keySet(), transition.getFrom());
+        if (testRequests.isEmpty())
+            return testRequests;
+
+        Instant now = Instant.now();
+        Session session = entityManager.unwrap(Session.class);
+        List<TestRequestStatusChangedEvent> events = new ArrayList<>(testRequests.size());
+        for (TestRequest testRequest : testRequests) {
+            Instant fromSince = testRequest.getStatusChangedAt();
+            testRequest.setStatus(transition.getTo());
+            testRequest.setStatusChangedAt(now);
+            //Written by the set-based update below. Making the request modifiable again takes its current state,
+            //associations included, as the snapshot: the update then needs no flush before it, and dirty checking
+            //at commit only writes what the effect changes.
+            session.setReadOnly(testRequest, true);
+            session.setReadOnly(testRequest, false);
+            events.add(new TestRequestStatusChangedEvent(testRequest, transition.getFrom(), transition.getTo(), user, fromSince, now));
+        }
+
+        List<Long> movedIds = testRequests.stream().map(TestRequest::getRequestId).collect(Collectors.toList());
+        int updated = testRequestRepository.updateStatus(movedIds, transition.getFrom(), transition.getTo(), now);
+        if (updated != movedIds.size())
+            throw new AppException("Requests changed while being updated, please retry");
+
+        //Nothing below needs a flush before the one at commit
+        effects.get(transition).apply(testRequests, payloads, user);
+        testRequestFlowService.log(testRequests, transition.getFrom(), transition.getTo(), user, now);
+        testRequestVersionService.bump(events);
+        events.forEach(applicationEventPublisher::publishEvent);
+
+        logger.info(transition + " applied to " + movedIds.size() + " request(s) by " + user.getUserName());
+        return testRequests;
+    }
+
+}
@@ -2,40 +2,40 @@ package org.upgrad.upstac.testrequests;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 import org.upgrad.upstac.exception.AppException;
-import org.upgrad.upstac.testrequests.consultation.Consultation;
-import org.upgrad.upstac.testrequests.consultation.ConsultationService;
 import org.upgrad.upstac.testrequests.consultation.CreateConsultationRequest;
-import org.upgrad.upstac.testrequests.flow.TestRequestFlowService;
-import org.upgrad.upstac.testrequests.lab.LabResult;
-import org.upgrad.upstac.testrequests.lab.LabResultService;
 import org.upgrad.upstac.testrequests.lab.CreateLabResult;
 import org.upgrad.upstac.users.User;
 
 import javax.transaction.Transactional;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 @Validated
 public class TestRequestUpdateService {
 
-    @Autowired
-    private TestRequestRepository testRequestRepository;
+    //Rows loaded and written per transaction when applying a bulk update
+    static final int BULK_CHUNK_SIZE = 100;
 
+    static final int BULK_MAX_SIZE = 2000;
 
     @Autowired
-    private TestRequestFlowService testRequestFlowService;
+    private TestRequestRepository testRequestRepository;
 
 
     @Autowired
-    private LabResultService labResultService;
-
+    private TestRequestTransitionService testRequestTransitionService;
 
     @Autowired
-    private ConsultationService consultationService;
+    private Validator validator;
 
 
     @Transactional
@@ -46,42 +46,117 @@ public class TestRequestUpdateService {
     }
 
 
-    TestRequest updateStatusAndSave(TestRequest testRequest, RequestStatus status) {
-        testRequest.setStatus(status);
-        return saveTestRequest(testRequest);
+    TestRequest applyTo(Long id, RequestTransition transition, Object payload, User user, String errorMessage) {
+        List<TestRequest> result = testRequestTransitionService.apply(transition, Collections.singletonMap(id, payload), user);
+        return result.stream().findFirst().orElseThrow(() -> new AppException(errorMessage));
     }
 
 
+    @Transactional
     public TestRequest assignForLabTest(Long id, User tester) {
-        TestRequest testRequest = testRequestRepository.findByRequestIdAndStatus(id,RequestStatus.INITIATED).orElseThrow(()-> new AppException("Invalid ID"));
-        LabResult labResult= labResultService.assignForLabTest(testRequest,tester);
-        testRequestFlowService.log(testRequest, RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS, tester);
-        testRequest.setLabResult(labResult);
-        return updateStatusAndSave(testRequest, RequestStatus.LAB_TEST_IN_PROGRESS);
+        return applyTo(id, RequestTransition.ASSIGN_FOR_LAB_TEST, null, tester, "Invalid ID");
+    }
+
+    @Transactional
+    public List<TestRequest> assignForLabTest(List<Long> ids, User tester) {
+        return testRequestTransitionService.apply(RequestTransition.ASSIGN_FOR_LAB_TEST, ids, tester);
     }
 
+    //Not joined to a caller's transaction, so a result that lost a race for a new daily positivity row can run again
     public TestRequest updateLabTest(Long id,@Valid CreateLabResult createLabResult, User tester) {
-        TestRequest testRequest = testRequestRepository.findByRequestIdAndStatus(id,RequestStatus.LAB_TEST_IN_PROGRESS).orElseThrow(()-> new AppException("Invalid ID or State"));
-        labResultService.updateLabTest(testRequest,createLabResult);
-        testRequestFlowService.log(testRequest, RequestStatus.LAB_TEST_IN_PROGRESS, RequestStatus.LAB_TEST_COMPLETED, tester);
-        return updateStatusAndSave(testRequest, RequestStatus.LAB_TEST_COMPLETED);
+        try {
+            return applyTo(id, RequestTransition.UPDATE_LAB_TEST, createLabResult, tester, "Invalid ID or State");
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Lab result update for " + id + " conflicted with another, retrying", e);
+            return applyTo(id, RequestTransition.UPDATE_LAB_TEST, createLabResult, tester, "Invalid ID or State");
+        }
     }
 
+    //Each chunk commits on its own; a failed item or chunk is reported without undoing the others
+    public BulkUpdateResult updateLabTests(Map<Long, CreateLabResult> createLabResults, User tester) {
+
+        if (createLabResults.size() > BULK_MAX_SIZE)
+            throw new AppException("At most " + BULK_MAX_SIZE + " results can be submitted at once");
+
+        BulkUpdateResult bulkUpdateResult = new BulkUpdateResult();
+        Map<Long, CreateLabResult> validResults = new LinkedHashMap<>();
+
+        createLabResults.forEach((id, createLabResult) -> {
+            String violations = getViolations(createLabResult);
+            if (violations.isEmpty())
+                validResults.put(id, createLabResult);
+            else
+                bulkUpdateResult.addError(id, violations);
+        });
+
+        List<Long> ids = new ArrayList<>(validResults.keySet());
+        for (int start = 0; start < ids.size(); start += BULK_CHUNK_SIZE) {
+            Map<Long, CreateLabResult> chunk = new LinkedHashMap<>();
+            ids.subList(start, Math.min(start + BULK_CHUNK_SIZE, ids.size())).forEach(id -> chunk.put(id, validResults.get(id)));
+            applyChunk(chunk, tester, bulkUpdateResult);
+        }
+
+        return bulkUpdateResult;
+    }
+
+    private void applyChunk(Map<Long, CreateLabResult> chunk, User tester, BulkUpdateResult bulkUpdateResult) {
+        try {
+            List<TestRequest> updated = testRequestTransitionService.apply(RequestTransition.UPDATE_LAB_TEST, chunk, tester);
+            bulkUpdateResult.addUpdated(updated);
+
+            Set<Long> updatedIds = updated.stream().map(TestRequest::getRequestId).collect(Collectors.toSet());
+            chunk.keySet().stream()
+                    .filter(id -> !updatedIds.contains(id))
+                    .forEach(id -> bulkUpdateResult.addError(id, "Invalid ID or State"));
+
+        } catch (RuntimeException e) {
+            //The chunk rolled back as a whole; apply its items one at a time so only the bad ones are reported
+            log.warn("Bulk lab result update failed for " + chunk.keySet() + ", retrying item by item", e);
+            chunk.forEach((id, createLabResult) -> applyItem(id, createLabResult, tester, bulkUpdateResult));
+        }
+    }
+
+    private void applyItem(Long id, CreateLabResult createLabResult, User tester, BulkUpdateResult bulkUpdateResult) {
+        try {
+            bulkUpdateResult.addUpdated(Collections.singletonList(updateLabTest(id, createLabResult, tester)));
+        } catch (RuntimeException e) {
+            log.error("Lab result update failed for " + id, e);
+            bulkUpdateResult.addError(id, e.getMessage());
+        }
+    }
+
+    private String getViolations(CreateLabResult createLabResult) {
+        if (null == createLabResult)
+            return "Missing lab result";
+
+        Set<ConstraintViolation<CreateLabResult>> violations = validator.validate(createLabResult);
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    @Transactional
     public TestRequest assignForConsultation(Long id, User doctor) {
-        TestRequest testRequest = testRequestRepository.findByRequestIdAndStatus(id,RequestStatus.LAB_TEST_COMPLETED).orElseThrow(()-> new AppException("Invalid ID or State"));
-        Consultation consultation =consultationService.assignForConsultation(testRequest,doctor);
-        testRequestFlowService.log(testRequest, RequestStatus.LAB_TEST_COMPLETED, RequestStatus.DIAGNOSIS_IN_PROCESS, doctor);
-        testRequest.setConsultation(consultation);
-        return updateStatusAndSave(testRequest, RequestStatus.DIAGNOSIS_IN_PROCESS);
+        return applyTo(id, RequestTransition.ASSIGN_FOR_CONSULTATION, null, doctor, "Invalid ID or State");
     }
 
+    @Transactional
+    public List<TestRequest> assignForConsultation(List<Long> ids, User doctor) {
+        return testRequestTransitionService.apply(RequestTransition.ASSIGN_FOR_CONSULTATION, ids, doctor);
+    }
 
-    public TestRequest updateConsultation(Long id, @Valid CreateConsultationRequest createConsultationRequest, User doctor) {
 
-        TestRequest testRequest = testRequestRepository.findByRequestIdAndStatus(id,RequestStatus.DIAGNOSIS_IN_PROCESS).orElseThrow(()-> new AppException("Invalid ID or State"));
-        consultationService.updateConsultation(testRequest,createConsultationRequest);
-        testRequestFlowService.log(testRequest, RequestStatus.DIAGNOSIS_IN_PROCESS, RequestStatus.COMPLETED, doctor);
-        return updateStatusAndSave(testRequest, RequestStatus.COMPLETED);
+    //For callers running after another transaction committed, where a joined transaction would never commit
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public List<TestRequest> assignForConsultationInNewTransaction(List<Long> ids, User doctor) {
+        return testRequestTransitionService.apply(RequestTransition.ASSIGN_FOR_CONSULTATION, ids, doctor);
+    }
+
+
+    @Transactional
+    public TestRequest updateConsultation(Long id, @Valid CreateConsultationRequest createConsultationRequest, User doctor) {
+        return applyTo(id, RequestTransition.UPDATE_CONSULTATION, createConsultationRequest, doctor, "Invalid ID or State");
     }
 
 
@@ -0,0 +1,34 @@
+package org.upgrad.upstac.testrequests;
+
+import lombok.Getter;
+import org.upgrad.upstac.shared.PersistentEntity;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+//The version of one bucket of ETag scopes; see TestRequestVersionService
+@Getter
+@Setter
+@ToString
+@Entity
+@NoArgsConstructor
+public class TestRequestVersion extends PersistentEntity {
+
+    @Id
+    private Integer bucket;
+
+    private long version;
+
+    public TestRequestVersion(Integer bucket) {
+        this.bucket = bucket;
+    }
+
+    @Override
+    protected Object identity() {
+        return getBucket();
+    }
+
+}
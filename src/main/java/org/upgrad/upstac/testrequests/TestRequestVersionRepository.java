@@ -0,0 +1,25 @@
+package org.upgrad.upstac.testrequests;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+
+public interface TestRequestVersionRepository extends JpaRepository<TestRequestVersion, Integer> {
+
+    @Query("select v.bucket from TestRequestVersion v")
+    List<Integer> findAllBuckets();
+
+    //Versions only rise, so the sum changes whenever any of the buckets does
+    @Query("select coalesce(sum(v.version), 0) from TestRequestVersion v where v.bucket in :buckets")
+    long sumVersions(@Param("buckets") Collection<Integer> buckets);
+
+    @Modifying
+    @Query("update TestRequestVersion v set v.version = v.version + 1 where v.bucket in :buckets")
+    int bump(@Param("buckets") Collection<Integer> buckets);
+
+}
@@ -0,0 +1,104 @@
+package org.upgrad.upstac.testrequests;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.transaction.Transactional;
+import java.util.*;
+import java.util.stream.Collectors;
+
+//Version counters behind the ETags of the queue and history endpoints, kept in the database so every node
+//answers with the same ETag. A status change bumps, in its own transaction, the statuses it leaves and enters,
+//per pin code as well, and every user whose lists hold the request; controllers answer 304 after reading
+//only the versions. Scopes share a fixed set of buckets: two scopes in one bucket only cost an extra 200.
+//The status buckets are bumped by every transition, so transitions committing at the same time wait on them.
+@Service
+public class TestRequestVersionService {
+
+    static final int BUCKETS = 1024;
+
+    @Autowired
+    private TestRequestVersionRepository testRequestVersionRepository;
+
+    private static final Logger log = LoggerFactory.getLogger(TestRequestVersionService.class);
+
+
+    //Before the web server starts, so no transition runs without its buckets
+    @PostConstruct
+    void createBuckets() {
+
+        Set<Integer> existing = new HashSet<>(testRequestVersionRepository.findAllBuckets());
+        List<TestRequestVersion> missing = new ArrayList<>();
+        for (int bucket = 0; bucket < BUCKETS; bucket++)
+            if (!existing.contains(bucket))
+                missing.add(new TestRequestVersion(bucket));
+
+        if (missing.isEmpty())
+            return;
+
+        try {
+            testRequestVersionRepository.saveAll(missing);
+        } catch (DataIntegrityViolationException e) {
+            log.info("version buckets were created by another node");
+        }
+    }
+
+
+    @Transactional
+    public void bump(Collection<TestRequestStatusChangedEvent> events) {
+
+        Set<Integer> buckets = new TreeSet<>();
+        for (TestRequestStatusChangedEvent event : events) {
+            Integer pinCode = event.getTestRequest().getPinCode();
+            if (null != event.getFrom()) {
+                buckets.add(statusBucket(event.getFrom()));
+                buckets.add(pinCodeBucket(event.getFrom(), pinCode));
+            }
+            buckets.add(statusBucket(event.getTo()));
+            buckets.add(pinCodeBucket(event.getTo(), pinCode));
+            event.getInvolvedUserNames().forEach(userName -> buckets.add(userBucket(userName)));
+        }
+
+        if (!buckets.isEmpty())
+            testRequestVersionRepository.bump(buckets);
+    }
+
+    static int statusBucket(RequestStatus status) {
+        return bucketOf("s" + status.ordinal());
+    }
+
+    static int pinCodeBucket(RequestStatus status, Integer pinCode) {
+        return bucketOf("s" + status.ordinal() + "p" + pinCode);
+    }
+
+    static int userBucket(String userName) {
+        return bucketOf("u" + userName);
+    }
+
+    private static int bucketOf(String scope) {
+        return Math.floorMod(scope.hashCode(), BUCKETS);
+    }
+
+
+    public String getETagFor(RequestStatus status) {
+        return toETag("s" + status.ordinal(), Collections.singleton(statusBucket(status)));
+    }
+
+    public String getETagFor(RequestStatus status, Collection<Integer> pinCodes) {
+        Set<Integer> buckets = pinCodes.stream().map(pinCode -> pinCodeBucket(status, pinCode)).collect(Collectors.toSet());
+        return toETag("s" + status.ordinal() + "p" + Integer.toHexString(new TreeSet<>(pinCodes).hashCode()), buckets);
+    }
+
+    public String getETagForUser(String userName) {
+        return toETag("u" + Integer.toHexString(userName.hashCode()), Collections.singleton(userBucket(userName)));
+    }
+
+    private String toETag(String scope, Collection<Integer> buckets) {
+        return "\"" + scope + "-" + testRequestVersionRepository.sumVersions(buckets) + "\"";
+    }
+
+}
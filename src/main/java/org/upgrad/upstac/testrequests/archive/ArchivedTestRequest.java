@@ -0,0 +1,60 @@
+package org.upgrad.upstac.testrequests.archive;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.upgrad.upstac.shared.PersistentEntity;
+import org.upgrad.upstac.testrequests.consultation.DoctorSuggestion;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+import org.upgrad.upstac.users.models.Gender;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+//A completed request moved out of the working tables. The columns are what history lookups, counts and exports
+//filter and group on; document is the request's JSON and flows its status changes, both gzipped.
+@Getter
+@Setter
+@ToString
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_archived_request_created_by", columnList = "createdById,requestId"),
+        @Index(name = "idx_archived_request_result_at", columnList = "resultAt")
+})
+public class ArchivedTestRequest extends PersistentEntity {
+
+    @Id
+    private Long requestId;
+
+    private Long createdById;
+    private String createdByUserName;
+    private String testerUserName;
+    private String doctorUserName;
+
+    private LocalDate created;
+    private Integer pinCode;
+    private Gender gender;
+    private Integer age;
+
+    private TestStatus result;
+    private LocalDateTime resultAt;
+    private LocalDate resultOn;
+    private DoctorSuggestion suggestion;
+    private LocalDate consultationOn;
+
+    private LocalDateTime archivedAt;
+
+    @Lob
+    @ToString.Exclude
+    private byte[] document;
+
+    @Lob
+    @ToString.Exclude
+    private byte[] flows;
+
+    @Override
+    protected Object identity() {
+        return getRequestId();
+    }
+}
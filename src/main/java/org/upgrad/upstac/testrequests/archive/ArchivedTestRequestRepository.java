@@ -0,0 +1,43 @@
+package org.upgrad.upstac.testrequests.archive;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ArchivedTestRequestRepository extends JpaRepository<ArchivedTestRequest, Long> {
+
+    @Query("select a.document from ArchivedTestRequest a where a.createdById = :userId order by a.requestId")
+    List<byte[]> findDocumentsByCreatedById(@Param("userId") Long userId);
+
+    //Lists, as an Optional<byte[]> would be taken for a collection of results; these hold at most one document
+    @Query("select a.document from ArchivedTestRequest a where a.requestId = :id")
+    List<byte[]> findDocumentByRequestId(@Param("id") Long id);
+
+    @Query("select a.document from ArchivedTestRequest a where a.requestId = :id and a.createdByUserName = :userName")
+    List<byte[]> findDocumentByRequestIdAndCreatedByUserName(@Param("id") Long id, @Param("userName") String userName);
+
+    @Query("select a.document from ArchivedTestRequest a where a.requestId = :id and a.testerUserName = :userName")
+    List<byte[]> findDocumentByRequestIdAndTesterUserName(@Param("id") Long id, @Param("userName") String userName);
+
+    @Query("select a.document from ArchivedTestRequest a where a.requestId = :id and a.doctorUserName = :userName")
+    List<byte[]> findDocumentByRequestIdAndDoctorUserName(@Param("id") Long id, @Param("userName") String userName);
+
+    //Same shapes as the LabResultRepository and ConsultationRepository counts, so the two can be added up
+    @Query("select a.result, count(a) from ArchivedTestRequest a group by a.result")
+    List<Object[]> countByResult();
+
+    @Query("select a.suggestion, count(a) from ArchivedTestRequest a group by a.suggestion")
+    List<Object[]> countBySuggestion();
+
+    @Query("select a.pinCode, a.gender, a.age, a.result, count(a) from ArchivedTestRequest a " +
+            "where a.result is not null and a.resultAt >= :from and a.resultAt < :to group by a.pinCode, a.gender, a.age, a.result")
+    List<Object[]> countResultsBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("select a.testerUserName, a.resultOn, count(a) from ArchivedTestRequest a " +
+            "where a.result is not null and a.resultAt >= :from and a.resultAt < :to group by a.testerUserName, a.resultOn")
+    List<Object[]> countResultsByTesterBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+}
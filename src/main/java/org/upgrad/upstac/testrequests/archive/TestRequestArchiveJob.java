@@ -0,0 +1,49 @@
+package org.upgrad.upstac.testrequests.archive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+//Nightly, archives requests completed more than archive.after-days ago, a chunk per transaction.
+//The chunk select locks its rows, so nodes running the job at the same time take turns chunk by chunk
+//instead of archiving a request twice; they do not work in parallel.
+@Component
+public class TestRequestArchiveJob {
+
+    @Value("${archive.after-days:365}")
+    private int afterDays;
+
+    @Value("${archive.chunk-size:200}")
+    private int chunkSize;
+
+    @Autowired
+    private TestRequestArchiveService testRequestArchiveService;
+
+    private static final Logger log = LoggerFactory.getLogger(TestRequestArchiveJob.class);
+
+
+    @Scheduled(cron = "${archive.cron:0 30 2 * * *}")
+    public void archive() {
+        LocalDate completedBefore = LocalDate.now().minusDays(afterDays);
+        long archived = 0;
+
+        try {
+            int moved;
+            do {
+                moved = testRequestArchiveService.archiveChunk(completedBefore, chunkSize);
+                archived += moved;
+            } while (moved == chunkSize);
+        } catch (RuntimeException e) {
+            log.error("archiving stopped after " + archived + " request(s)", e);
+        }
+
+        if (archived > 0)
+            log.info("archived " + archived + " request(s) completed before " + completedBefore);
+    }
+
+}
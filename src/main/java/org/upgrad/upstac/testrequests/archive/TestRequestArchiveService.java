@@ -0,0 +1,187 @@
+package org.upgrad.upstac.testrequests.archive;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestRepository;
+import org.upgrad.upstac.testrequests.consultation.Consultation;
+import org.upgrad.upstac.testrequests.consultation.ConsultationRepository;
+import org.upgrad.upstac.testrequests.flow.TestRequestFlowRepository;
+import org.upgrad.upstac.testrequests.lab.LabResult;
+import org.upgrad.upstac.testrequests.lab.LabResultRepository;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.roles.UserRole;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+//Moves completed requests, with their lab result, consultation and flow log, out of the working tables
+//into archived_test_request, and reads them back for history lookups
+@Service
+public class TestRequestArchiveService {
+
+    @Autowired
+    private ArchivedTestRequestRepository archivedTestRequestRepository;
+
+    @Autowired
+    private TestRequestRepository testRequestRepository;
+
+    @Autowired
+    private LabResultRepository labResultRepository;
+
+    @Autowired
+    private ConsultationRepository consultationRepository;
+
+    @Autowired
+    private TestRequestFlowRepository testRequestFlowRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+
+    //Archives up to size requests completed before the given day and returns how many were moved
+    @Transactional
+    public int archiveChunk(LocalDate completedBefore, int size) {
+
+        List<TestRequest> testRequests = testRequestRepository.findCompletedBefore(RequestStatus.COMPLETED, completedBefore, PageRequest.of(0, size));
+        if (testRequests.isEmpty())
+            return 0;
+
+        List<Long> ids = testRequests.stream().map(TestRequest::getRequestId).collect(Collectors.toList());
+        Map<Long, List<Map<String, Object>>> flows = new HashMap<>();
+        for (Object[] flow : testRequestFlowRepository.findLogByRequestIds(ids)) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("id", flow[1]);
+            entry.put("fromStatus", flow[2]);
+            entry.put("toStatus", flow[3]);
+            entry.put("changedBy", flow[4]);
+            entry.put("happenedOn", flow[5]);
+            entry.put("happenedAt", flow[6]);
+            flows.computeIfAbsent((Long) flow[0], id -> new ArrayList<>()).add(entry);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            for (TestRequest testRequest : testRequests)
+                entityManager.persist(toArchived(testRequest, flows.getOrDefault(testRequest.getRequestId(), Collections.emptyList()), now));
+        } catch (JsonProcessingException e) {
+            throw new AppException("Unable to archive requests " + ids, e);
+        }
+
+        testRequestFlowRepository.deleteByRequestIds(ids);
+        labResultRepository.deleteByRequestIds(ids);
+        consultationRepository.deleteByRequestIds(ids);
+        testRequestRepository.deleteByRequestIds(ids);
+        return ids.size();
+    }
+
+    private ArchivedTestRequest toArchived(TestRequest testRequest, List<Map<String, Object>> flows, LocalDateTime now) throws JsonProcessingException {
+        ArchivedTestRequest archived = new ArchivedTestRequest();
+        archived.setRequestId(testRequest.getRequestId());
+        if (null != testRequest.getCreatedBy()) {
+            archived.setCreatedById(testRequest.getCreatedBy().getId());
+            archived.setCreatedByUserName(testRequest.getCreatedBy().getUserName());
+        }
+        archived.setCreated(testRequest.getCreated());
+        archived.setPinCode(testRequest.getPinCode());
+        archived.setGender(testRequest.getGender());
+        archived.setAge(testRequest.getAge());
+
+        LabResult labResult = testRequest.getLabResult();
+        if (null != labResult) {
+            archived.setTesterUserName(null == labResult.getTester() ? null : labResult.getTester().getUserName());
+            archived.setResult(labResult.getResult());
+            archived.setResultAt(labResult.getUpdatedAt());
+            archived.setResultOn(labResult.getUpdatedOn());
+        }
+
+        Consultation consultation = testRequest.getConsultation();
+        if (null != consultation) {
+            archived.setDoctorUserName(null == consultation.getDoctor() ? null : consultation.getDoctor().getUserName());
+            archived.setSuggestion(consultation.getSuggestion());
+            archived.setConsultationOn(consultation.getUpdatedOn());
+        }
+
+        archived.setArchivedAt(now);
+        archived.setDocument(gzip(objectMapper.writeValueAsBytes(testRequest)));
+        archived.setFlows(gzip(objectMapper.writeValueAsBytes(flows)));
+        return archived;
+    }
+
+
+    //The JSON of a patient's archived requests, oldest first
+    public List<byte[]> findDocumentsFor(User user) {
+        return archivedTestRequestRepository.findDocumentsByCreatedById(user.getId()).stream()
+                .map(TestRequestArchiveService::gunzip)
+                .collect(Collectors.toList());
+    }
+
+    //Same visibility as TestRequestQueryService.findTestRequestFor
+    public Optional<byte[]> findDocumentFor(String userName, UserRole role, Long id) {
+
+        if (null == role)
+            throw new AppException("Invalid Role");
+
+        List<byte[]> documents;
+        switch (role) {
+            case USER:
+                documents = archivedTestRequestRepository.findDocumentByRequestIdAndCreatedByUserName(id, userName);
+                break;
+            case TESTER:
+                documents = archivedTestRequestRepository.findDocumentByRequestIdAndTesterUserName(id, userName);
+                break;
+            case DOCTOR:
+                documents = archivedTestRequestRepository.findDocumentByRequestIdAndDoctorUserName(id, userName);
+                break;
+            default:
+                documents = archivedTestRequestRepository.findDocumentByRequestId(id);
+        }
+        return documents.stream().findFirst().map(TestRequestArchiveService::gunzip);
+    }
+
+
+    static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 2 + 32);
+        try (OutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    static byte[] gunzip(byte[] bytes) {
+        ByteArrayOutputStream plain = new ByteArrayOutputStream(bytes.length * 3);
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = gzip.read(buffer)) > 0)
+                plain.write(buffer, 0, read);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return plain.toByteArray();
+    }
+
+}
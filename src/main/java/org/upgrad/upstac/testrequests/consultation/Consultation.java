@@ -1,17 +1,21 @@
 package org.upgrad.upstac.testrequests.consultation;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.ToString;
+import org.upgrad.upstac.shared.PersistentEntity;
 import org.upgrad.upstac.testrequests.TestRequest;
 import org.upgrad.upstac.users.User;
 
 import javax.persistence.*;
 import java.time.LocalDate;
 
-@Data
+@Getter
+@Setter
+@ToString
 @Entity
-public class Consultation {
+public class Consultation extends PersistentEntity {
 
 
     @Id
@@ -31,14 +35,12 @@ public class Consultation {
     private LocalDate updatedOn;
 
     @ManyToOne
+    @ToString.Exclude
     User doctor;
 
-
-
-
-
-
-
-
+    @Override
+    protected Object identity() {
+        return getId();
+    }
 
 }
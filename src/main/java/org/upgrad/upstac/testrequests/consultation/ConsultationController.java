@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 import org.upgrad.upstac.config.security.UserLoggedInService;
 import org.upgrad.upstac.exception.AppException;
@@ -14,6 +15,7 @@ import org.upgrad.upstac.testrequests.RequestStatus;
 import org.upgrad.upstac.testrequests.TestRequest;
 import org.upgrad.upstac.testrequests.TestRequestQueryService;
 import org.upgrad.upstac.testrequests.TestRequestUpdateService;
+import org.upgrad.upstac.testrequests.TestRequestVersionService;
 import org.upgrad.upstac.testrequests.flow.TestRequestFlowService;
 import org.upgrad.upstac.users.User;
 
@@ -46,17 +48,33 @@ public class ConsultationController {
     @Autowired
     private UserLoggedInService userLoggedInService;
 
+    @Autowired
+    private TestRequestVersionService testRequestVersionService;
+
+    @Autowired
+    private ConsultationDispatcher consultationDispatcher;
 
 
+
+    //Most severe first; size limits it to the head of the queue
     @GetMapping("/in-queue")
     @PreAuthorize("hasAnyRole('DOCTOR')")
-    public List<TestRequest> getForConsultations()  {
-        return testRequestQueryService.findBy(RequestStatus.LAB_TEST_COMPLETED);
+    public List<TestRequest> getForConsultations(WebRequest webRequest, @RequestParam(required = false) Integer size)  {
+        if (webRequest.checkNotModified(testRequestVersionService.getETagFor(RequestStatus.LAB_TEST_COMPLETED)))
+            return null;
+        try {
+            return testRequestQueryService.findByPriority(RequestStatus.LAB_TEST_COMPLETED, size);
+        } catch (AppException e) {
+            throw asBadRequest(e.getMessage());
+        }
     }
 
     @GetMapping
     @PreAuthorize("hasAnyRole('DOCTOR')")
-    public List<TestRequest> getForDoctor()  {
+    public List<TestRequest> getForDoctor(WebRequest webRequest)  {
+        if (webRequest.checkNotModified(testRequestVersionService.getETagForUser(userLoggedInService.getLoggedInUserName())))
+            return null;
+
         User doctor = userLoggedInService.getLoggedInUser();
         return testRequestQueryService.findByDoctor(doctor);
     }
@@ -77,6 +95,20 @@ public class ConsultationController {
 
 
 
+    @PreAuthorize("hasAnyRole('DOCTOR')")
+    @PutMapping("/assign")
+    public List<TestRequest> assignAllForConsultation(@RequestBody List<Long> ids) {
+        try {
+            User doctor = userLoggedInService.getLoggedInUser();
+            return testRequestUpdateService.assignForConsultation(ids, doctor);
+
+        }catch (AppException e) {
+            throw asBadRequest(e.getMessage());
+        }
+    }
+
+
+
     @PreAuthorize("hasAnyRole('DOCTOR')")
     @PutMapping("/update/{id}")
     public TestRequest updateConsultation(@PathVariable Long id,@RequestBody CreateConsultationRequest testResult) {
@@ -91,6 +123,11 @@ public class ConsultationController {
         }
     }
 
+    @PreAuthorize("hasAnyRole('DOCTOR','GOVERNMENT_AUTHORITY')")
+    @GetMapping("/dispatch")
+    public ConsultationDispatchStatus getDispatchStatus() {
+        return consultationDispatcher.getStatus();
+    }
 
 
 }
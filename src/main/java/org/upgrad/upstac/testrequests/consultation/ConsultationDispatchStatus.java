@@ -0,0 +1,26 @@
+package org.upgrad.upstac.testrequests.consultation;
+
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class ConsultationDispatchStatus {
+
+    private boolean enabled;
+
+    //Open DIAGNOSIS_IN_PROCESS consultations of each approved doctor
+    private Map<String, Integer> openConsultations;
+
+    private long autoAssigned;
+    private long notAssigned;
+
+    //Time from a lab result to the request's assignment to a doctor, over every assignment since startup
+    private long assignments;
+    private long averageWaitMillis;
+    private long maxWaitMillis;
+    private long lastWaitMillis;
+
+    //How long the oldest request still in the consultation queue has waited
+    private long oldestWaitingMillis;
+}
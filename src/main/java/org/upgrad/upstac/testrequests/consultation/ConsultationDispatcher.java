@@ -0,0 +1,258 @@
+package org.upgrad.upstac.testrequests.consultation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestRepository;
+import org.upgrad.upstac.testrequests.TestRequestStatusChangedEvent;
+import org.upgrad.upstac.testrequests.TestRequestUpdateService;
+import org.upgrad.upstac.testrequests.lab.LabResultRepository;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.UserRepository;
+import org.upgrad.upstac.users.UserUpdatedEvent;
+import org.upgrad.upstac.users.models.AccountStatus;
+import org.upgrad.upstac.users.roles.UserRole;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+//Assigns each request reaching LAB_TEST_COMPLETED to the approved doctor with the fewest open consultations,
+//when consultation.auto-assign is on. Assignments run on a thread of their own, so the tester's call returns
+//without waiting for them; requests that do not fit its queue are left to the periodic pass.
+//Open counts are kept in memory and moved by committed status changes; the periodic pass resets them from the
+//database and assigns requests still waiting, most severe first, e.g. from when no doctor was approved.
+//Every node runs that pass; a request another node assigned first is no longer LAB_TEST_COMPLETED when the
+//assignment locks it, so it is skipped rather than reassigned.
+@Service
+public class ConsultationDispatcher implements DisposableBean {
+
+    static final int BACKLOG_PER_PASS = 500;
+
+    static final int MAX_QUEUED_DISPATCHES = 1000;
+
+    //Each doctor's load is one word, the open consultations counted from commits in the high half and the
+    //reservations in flight in the low half, so a reservation is a single compare-and-set against the load
+    //it was chosen for, and a reset replaces the counted half without losing the reservations
+    private static final long COUNTED = 1L << 32;
+
+    @Value("${consultation.auto-assign:false}")
+    private volatile boolean enabled;
+
+    @Autowired
+    private TestRequestUpdateService testRequestUpdateService;
+
+    @Autowired
+    private ConsultationRepository consultationRepository;
+
+    @Autowired
+    private LabResultRepository labResultRepository;
+
+    @Autowired
+    private TestRequestRepository testRequestRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private volatile Map<String, User> doctors = Collections.emptyMap();
+
+    private final Map<String, AtomicLong> loads = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    private final LongAdder autoAssigned = new LongAdder();
+    private final LongAdder notAssigned = new LongAdder();
+    private final LongAdder assignments = new LongAdder();
+    private final LongAdder totalWaitMillis = new LongAdder();
+    private final AtomicLong maxWaitMillis = new AtomicLong();
+    private final AtomicLong lastWaitMillis = new AtomicLong();
+
+    private static final Logger log = LoggerFactory.getLogger(ConsultationDispatcher.class);
+
+
+    @PostConstruct
+    void createExecutor() {
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>(MAX_QUEUED_DISPATCHES), runnable -> {
+            Thread thread = new Thread(runnable, "consultation-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(TestRequestStatusChangedEvent event) {
+
+        if (event.getTo() == RequestStatus.DIAGNOSIS_IN_PROCESS) {
+            loadOf(event.getChangedBy().getUserName()).addAndGet(COUNTED);
+            recordWait(event.getTestRequest());
+        } else if (event.getFrom() == RequestStatus.DIAGNOSIS_IN_PROCESS) {
+            loadOf(event.getChangedBy().getUserName()).addAndGet(-COUNTED);
+        }
+
+        if (enabled && event.getTo() == RequestStatus.LAB_TEST_COMPLETED) {
+            Long id = event.getRequestId();
+            executor.execute(() -> dispatch(id));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserUpdated(UserUpdatedEvent event) {
+        if (enabled)
+            loadDoctors();
+    }
+
+
+    @Scheduled(fixedDelayString = "${consultation.dispatch-reconcile-millis:60000}")
+    public void reconcile() {
+        if (!enabled)
+            return;
+
+        loadDoctors();
+
+        Map<String, Long> counts = new HashMap<>();
+        consultationRepository.countByDoctorForRequestStatus(RequestStatus.DIAGNOSIS_IN_PROCESS)
+                .forEach(row -> counts.put((String) row[0], (Long) row[1]));
+        resetLoads(counts);
+
+        int assigned = 0;
+        for (Long id : testRequestRepository.findRequestIdsByPriority(RequestStatus.LAB_TEST_COMPLETED, PageRequest.of(0, BACKLOG_PER_PASS)))
+            if (dispatch(id))
+                assigned++;
+        if (assigned > 0)
+            log.info("assigned " + assigned + " waiting request(s) to doctors");
+    }
+
+    void resetLoads(Map<String, Long> counts) {
+        Set<String> userNames = new HashSet<>(loads.keySet());
+        userNames.addAll(counts.keySet());
+        for (String userName : userNames) {
+            long counted = counts.getOrDefault(userName, 0L);
+            loadOf(userName).updateAndGet(load -> counted * COUNTED + reservationsIn(load));
+        }
+    }
+
+    private void loadDoctors() {
+        Map<String, User> approved = new LinkedHashMap<>();
+        userRepository.findByRoleAndStatus(UserRole.DOCTOR.name(), AccountStatus.APPROVED)
+                .forEach(doctor -> approved.put(doctor.getUserName(), doctor));
+        doctors = approved;
+    }
+
+
+    //The chosen doctor's count is raised before the assignment commits, so concurrent dispatches spread out;
+    //the reservation is dropped afterwards, as a committed assignment has counted itself by then
+    boolean dispatch(Long id) {
+        User doctor = reserveLeastLoaded();
+        if (null == doctor) {
+            notAssigned.increment();
+            return false;
+        }
+
+        try {
+            boolean assigned = !testRequestUpdateService.assignForConsultationInNewTransaction(Collections.singletonList(id), doctor).isEmpty();
+            if (assigned)
+                autoAssigned.increment();
+            return assigned;
+        } catch (RuntimeException e) {
+            notAssigned.increment();
+            log.warn("unable to assign request " + id + " to " + doctor.getUserName(), e);
+            return false;
+        } finally {
+            release(doctor.getUserName());
+        }
+    }
+
+    //Chooses again when the chosen doctor's load changed after it was read, by another dispatch or a commit
+    User reserveLeastLoaded() {
+        Map<String, User> candidates = doctors;
+        while (true) {
+            String chosen = null;
+            long chosenLoad = 0;
+            for (String userName : candidates.keySet()) {
+                long load = loadOf(userName).get();
+                if (null == chosen || openIn(load) < openIn(chosenLoad)) {
+                    chosen = userName;
+                    chosenLoad = load;
+                }
+            }
+
+            if (null == chosen)
+                return null;
+            if (loadOf(chosen).compareAndSet(chosenLoad, chosenLoad + 1))
+                return candidates.get(chosen);
+        }
+    }
+
+    private void release(String userName) {
+        loadOf(userName).decrementAndGet();
+    }
+
+    private AtomicLong loadOf(String userName) {
+        return loads.computeIfAbsent(userName, key -> new AtomicLong());
+    }
+
+    //Reservations are never negative, so the counted half is what the arithmetic shift leaves
+    private static long reservationsIn(long load) {
+        return load & (COUNTED - 1);
+    }
+
+    private static int openIn(long load) {
+        return (int) ((load >> 32) + reservationsIn(load));
+    }
+
+    private void recordWait(TestRequest testRequest) {
+        if (null == testRequest.getLabResult() || null == testRequest.getLabResult().getUpdatedAt())
+            return;
+
+        long waitMillis = Duration.between(testRequest.getLabResult().getUpdatedAt(), LocalDateTime.now()).toMillis();
+        assignments.increment();
+        totalWaitMillis.add(waitMillis);
+        lastWaitMillis.set(waitMillis);
+        maxWaitMillis.accumulateAndGet(waitMillis, Math::max);
+    }
+
+
+    public ConsultationDispatchStatus getStatus() {
+        ConsultationDispatchStatus status = new ConsultationDispatchStatus();
+        status.setEnabled(enabled);
+
+        Map<String, Integer> openConsultations = new TreeMap<>();
+        doctors.keySet().forEach(userName -> openConsultations.put(userName, openIn(loadOf(userName).get())));
+        status.setOpenConsultations(openConsultations);
+
+        status.setAutoAssigned(autoAssigned.sum());
+        status.setNotAssigned(notAssigned.sum());
+
+        long count = assignments.sum();
+        status.setAssignments(count);
+        status.setAverageWaitMillis(count == 0 ? 0 : totalWaitMillis.sum() / count);
+        status.setMaxWaitMillis(maxWaitMillis.get());
+        status.setLastWaitMillis(lastWaitMillis.get());
+
+        LocalDateTime oldest = labResultRepository.findOldestResultAt(RequestStatus.LAB_TEST_COMPLETED);
+        status.setOldestWaitingMillis(null == oldest ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis());
+        return status;
+    }
+
+}
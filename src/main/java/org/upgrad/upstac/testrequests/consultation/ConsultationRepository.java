@@ -1,10 +1,15 @@
 package org.upgrad.upstac.testrequests.consultation;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import org.upgrad.upstac.testrequests.RequestStatus;
 import org.upgrad.upstac.testrequests.TestRequest;
 import org.upgrad.upstac.users.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,9 +28,20 @@ public interface ConsultationRepository extends JpaRepository<Consultation,Long>
 
 
     List<Consultation> findByDoctor(User user);
+    List<Consultation> findByRequestIn(Collection<TestRequest> testRequests);
     Optional<Consultation> findByRequest(TestRequest testRequest);
 
     Optional<Consultation> findByDoctorAndRequest(User doctor,TestRequest testRequest);
 
+    @Modifying(flushAutomatically = true)
+    @Query("delete from Consultation c where c.request.requestId in :ids")
+    int deleteByRequestIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select c.doctor.userName, count(c) from Consultation c where c.request.status = :status group by c.doctor.userName")
+    List<Object[]> countByDoctorForRequestStatus(@Param("status") RequestStatus status);
+
+    @Query("select c.suggestion, count(c) from Consultation c group by c.suggestion")
+    List<Object[]> countBySuggestion();
+
 
 }
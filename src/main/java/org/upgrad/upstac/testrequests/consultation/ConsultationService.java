@@ -11,6 +11,9 @@ import org.upgrad.upstac.users.User;
 
 import javax.transaction.Transactional;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @Validated
@@ -23,24 +26,43 @@ public class ConsultationService {
 
 
     @Transactional
-    public Consultation assignForConsultation( TestRequest testRequest, User doctor) {
-        Consultation consultation = new Consultation();
-        consultation.setDoctor(doctor);
-        consultation.setRequest(testRequest);
+    public List<Consultation> assignForConsultation(List<TestRequest> testRequests, User doctor) {
+        List<Consultation> consultations = testRequests.stream()
+                .map(testRequest -> createConsultation(testRequest, doctor))
+                .collect(Collectors.toList());
 
-        return    consultationRepository.save(consultation);
+        return consultationRepository.saveAll(consultations);
 
 
     }
 
-    public Consultation updateConsultation(TestRequest testRequest , CreateConsultationRequest createConsultationRequest) {
-        Consultation consultation = consultationRepository.findByRequest(testRequest).orElseThrow(()-> new AppException("Invalid Request"));
-
-        consultation.setSuggestion(createConsultationRequest.getSuggestion());
-        consultation.setComments(createConsultationRequest.getComments());
-        consultation.setUpdatedOn(LocalDate.now());
+    private Consultation createConsultation(TestRequest testRequest, User doctor) {
+        Consultation consultation = new Consultation();
+        consultation.setDoctor(doctor);
+        consultation.setRequest(testRequest);
+        testRequest.setConsultation(consultation);
+        return consultation;
+    }
 
-        return consultationRepository.save(consultation);
+    @Transactional
+    public List<Consultation> updateConsultation(List<TestRequest> testRequests, Map<Long, CreateConsultationRequest> createConsultationRequests) {
+        Map<Long, Consultation> consultations = consultationRepository.findByRequestIn(testRequests)
+                .stream()
+                .collect(Collectors.toMap(consultation -> consultation.getRequest().getRequestId(), consultation -> consultation));
+
+        for (TestRequest testRequest : testRequests) {
+            Consultation consultation = consultations.get(testRequest.getRequestId());
+            if (null == consultation)
+                throw new AppException("Invalid Request");
+
+            CreateConsultationRequest createConsultationRequest = createConsultationRequests.get(testRequest.getRequestId());
+            consultation.setSuggestion(createConsultationRequest.getSuggestion());
+            consultation.setComments(createConsultationRequest.getComments());
+            consultation.setUpdatedOn(LocalDate.now());
+            testRequest.setConsultation(consultation);
+        }
+
+        return consultationRepository.saveAll(consultations.values());
 
 
     }
@@ -0,0 +1,67 @@
+package org.upgrad.upstac.testrequests.export;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.testrequests.RequestStatus;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+import static org.upgrad.upstac.exception.UpgradResponseStatusException.asBadRequest;
+import static org.upgrad.upstac.shared.DateParser.getDateFromString;
+
+
+@RestController
+@RequestMapping("/api/government/export")
+public class ExportController {
+
+
+    @Autowired
+    private TestRequestExportService testRequestExportService;
+
+
+    //Compressed when the client accepts gzip; from and to are yyyy-MM-dd
+    @GetMapping("/testrequests")
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public ResponseEntity<StreamingResponseBody> exportTestRequests(@RequestParam(defaultValue = "CSV") TestRequestExportService.Format format,
+                                                                    @RequestParam(required = false) RequestStatus status,
+                                                                    @RequestParam(required = false) String from,
+                                                                    @RequestParam(required = false) String to,
+                                                                    @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        try {
+            LocalDate fromDate = null == from ? null : getDateFromString(from);
+            LocalDate toDate = null == to ? null : getDateFromString(to);
+            if (null != fromDate && null != toDate && fromDate.isAfter(toDate))
+                throw new AppException("From date is after to date");
+
+            boolean gzip = null != acceptEncoding && acceptEncoding.contains("gzip");
+            String fileName = "testrequests." + format.name().toLowerCase();
+
+            StreamingResponseBody body = outputStream -> {
+                OutputStream target = gzip ? new GZIPOutputStream(outputStream, 8192) : outputStream;
+                testRequestExportService.export(target, format, status, fromDate, toDate);
+                if (gzip)
+                    ((GZIPOutputStream) target).finish();
+            };
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                    .contentType(format == TestRequestExportService.Format.CSV ? new MediaType("text", "csv") : new MediaType("application", "x-ndjson"));
+            if (gzip)
+                response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return response.body(body);
+
+        } catch (AppException e) {
+            throw asBadRequest(e.getMessage());
+        }
+    }
+
+
+}
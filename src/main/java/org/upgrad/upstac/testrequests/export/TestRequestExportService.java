@@ -0,0 +1,205 @@
+package org.upgrad.upstac.testrequests.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.consultation.DoctorSuggestion;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+import org.upgrad.upstac.users.models.Gender;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+//Writes test requests with their lab result and consultation straight from a forward-only JDBC cursor,
+//one row at a time, so memory use does not depend on how many rows are exported.
+//Contact details (name, email, phone, address) are not exported.
+@Service
+public class TestRequestExportService {
+
+    public enum Format {CSV, NDJSON}
+
+    static final String[] COLUMNS = {"requestId", "created", "status", "gender", "age", "pinCode", "result", "resultOn", "suggestion", "consultationOn"};
+
+    private static final String SELECT = "select t.request_id, t.created, t.status, t.gender, t.age, t.pin_code, " +
+            "l.result, l.updated_on, c.suggestion, c.updated_on " +
+            "from test_request t " +
+            "left join lab_result l on l.request_request_id = t.request_id " +
+            "left join consultation c on c.request_request_id = t.request_id";
+
+    private static final String SELECT_ARCHIVED = "select a.request_id, a.created, " + RequestStatus.COMPLETED.ordinal() + ", a.gender, a.age, a.pin_code, " +
+            "a.result, a.result_on, a.suggestion, a.consultation_on " +
+            "from archived_test_request a";
+
+    @Value("${export.fetch-size:500}")
+    private int fetchSize;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private static final Logger log = LoggerFactory.getLogger(TestRequestExportService.class);
+
+
+    @PostConstruct
+    void createJdbcTemplate() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+
+    //Filters are optional; dates are inclusive and apply to the day the request was created.
+    //Archived requests, all completed, are written first, then the working ones, each in request id order.
+    public long export(OutputStream outputStream, Format format, RequestStatus status, LocalDate from, LocalDate to) throws IOException {
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        RowWriter rowWriter = Format.CSV == format ? new CsvRowWriter(writer) : new JsonRowWriter(objectMapper.getFactory().createGenerator(writer));
+
+        long rows = 0;
+        if (null == status || RequestStatus.COMPLETED == status)
+            rows += export(rowWriter, SELECT_ARCHIVED, "a", null, from, to);
+        rows += export(rowWriter, SELECT, "t", status, from, to);
+
+        rowWriter.close();
+        log.info("exported " + rows + " test request(s) as " + format);
+        return rows;
+    }
+
+    private long export(RowWriter rowWriter, String select, String alias, RequestStatus status, LocalDate from, LocalDate to) {
+
+        StringBuilder sql = new StringBuilder(select).append(" where 1 = 1");
+        List<Object> parameters = new ArrayList<>();
+        if (null != status) {
+            sql.append(" and ").append(alias).append(".status = ?");
+            parameters.add(status.ordinal());
+        }
+        if (null != from) {
+            sql.append(" and ").append(alias).append(".created >= ?");
+            parameters.add(Date.valueOf(from));
+        }
+        if (null != to) {
+            sql.append(" and ").append(alias).append(".created <= ?");
+            parameters.add(Date.valueOf(to));
+        }
+        sql.append(" order by ").append(alias).append(".request_id");
+
+        long[] rows = {0};
+        jdbcTemplate.query(sql.toString(), resultSet -> {
+            try {
+                rowWriter.write(toValues(resultSet));
+                rows[0]++;
+            } catch (IOException e) {
+                //Usually the client went away; stop reading instead of walking the rest of the cursor
+                throw new UncheckedIOException(e);
+            }
+        }, parameters.toArray());
+        return rows[0];
+    }
+
+    static Object[] toValues(ResultSet resultSet) throws SQLException {
+        return new Object[]{
+                resultSet.getLong(1),
+                toLocalDate(resultSet.getDate(2)),
+                toName(RequestStatus.values(), resultSet, 3),
+                toName(Gender.values(), resultSet, 4),
+                resultSet.getObject(5),
+                resultSet.getObject(6),
+                toName(TestStatus.values(), resultSet, 7),
+                toLocalDate(resultSet.getDate(8)),
+                toName(DoctorSuggestion.values(), resultSet, 9),
+                toLocalDate(resultSet.getDate(10))
+        };
+    }
+
+    //Enums are stored by ordinal
+    private static String toName(Enum<?>[] values, ResultSet resultSet, int column) throws SQLException {
+        int ordinal = resultSet.getInt(column);
+        return resultSet.wasNull() ? null : values[ordinal].name();
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return null == date ? null : date.toLocalDate();
+    }
+
+
+    interface RowWriter {
+        void write(Object[] values) throws IOException;
+
+        void close() throws IOException;
+    }
+
+    //No exported column holds free text, so values never need quoting
+    static class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        CsvRowWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            writer.write(String.join(",", COLUMNS));
+            writer.write('\n');
+        }
+
+        @Override
+        public void write(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0)
+                    writer.write(',');
+                if (null != values[i])
+                    writer.write(values[i].toString());
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+
+    static class JsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        JsonRowWriter(JsonGenerator generator) {
+            this.generator = generator;
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(Object[] values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < values.length; i++) {
+                generator.writeFieldName(COLUMNS[i]);
+                if (null == values[i])
+                    generator.writeNull();
+                else if (values[i] instanceof Number)
+                    generator.writeNumber(values[i].toString());
+                else
+                    generator.writeString(values[i].toString());
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.flush();
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+package org.upgrad.upstac.testrequests.flow;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.upgrad.upstac.config.datasource.ReplicaRoutingDataSource;
+import org.upgrad.upstac.exception.AppException;
+
+import static org.upgrad.upstac.exception.UpgradResponseStatusException.asBadRequest;
+import static org.upgrad.upstac.exception.UpgradResponseStatusException.asExceptionFromHttpStatus;
+
+
+@RestController
+@RequestMapping("/api/changes")
+public class ChangeFeedController {
+
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+
+    //Without since, starts from the oldest change kept. Read from the primary, where replica lag cannot hide
+    //a change the cursor then passes
+    @GetMapping
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public ChangePage getChanges(@RequestParam(required = false) Long since, @RequestParam(required = false) Integer size) {
+        try {
+            return ReplicaRoutingDataSource.onPrimary(() -> changeFeedService.getChanges(since, size));
+        } catch (CursorExpiredException e) {
+            throw asExceptionFromHttpStatus(e.getMessage(), HttpStatus.GONE);
+        } catch (AppException e) {
+            throw asBadRequest(e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package org.upgrad.upstac.testrequests.flow;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.upgrad.upstac.exception.AppException;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+//Pages of status changes after a cursor, in flow id order, for consumers syncing incrementally.
+//Flow ids are taken at insert but become visible at commit, so a page stops at the first change younger than
+//the settle window: a transition still committing below it would otherwise be skipped by the next cursor.
+//That only holds when every transition commits within changes.settle-millis of its happenedAt, as measured
+//across the clocks of the writing and the reading node; TestRequestFlowService logs each commit that does not.
+//The retention window bounds how far back a consumer may resume, not what is stored: flows are only deleted
+//with their requests by archiving. Cursors before the window expire and the consumer syncs the full lists.
+@Service
+public class ChangeFeedService {
+
+    public static final int DEFAULT_PAGE_SIZE = 200;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    @Value("${changes.settle-millis:5000}")
+    private long settleMillis;
+
+    @Value("${changes.retention-days:30}")
+    private int retentionDays;
+
+    @Autowired
+    private TestRequestFlowRepository testRequestFlowRepository;
+
+
+    @Transactional(readOnly = true)
+    public ChangePage getChanges(Long since, Integer size) {
+
+        int pageSize = null == size ? DEFAULT_PAGE_SIZE : size;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE)
+            throw new AppException("size should be between 1 and " + MAX_PAGE_SIZE);
+        if (null != since && since < 0)
+            throw new AppException("Invalid cursor " + since);
+
+        Long oldest = getOldestRetained();
+        long cursor;
+        if (null == since)
+            cursor = null == oldest ? 0 : oldest - 1;
+        else if (null != oldest && since < oldest - 1)
+            throw new CursorExpiredException("Changes after " + since + " are no longer kept, sync the full lists again");
+        else
+            cursor = since;
+
+        List<ChangeRecord> records = testRequestFlowRepository.findChangesAfter(cursor, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = records.size() > pageSize;
+        if (hasMore)
+            records = records.subList(0, pageSize);
+
+        Instant settledBefore = Instant.now().minusMillis(settleMillis);
+        int settled = 0;
+        while (settled < records.size() && isSettled(records.get(settled), settledBefore))
+            settled++;
+        if (settled < records.size()) {
+            records = records.subList(0, settled);
+            hasMore = false;
+        }
+
+        ChangePage page = new ChangePage();
+        page.getChanges().addAll(records);
+        page.setNextCursor(records.isEmpty() ? cursor : records.get(records.size() - 1).getCursor());
+        page.setHasMore(hasMore);
+        return page;
+    }
+
+    //Flows logged before happenedAt was kept are long settled
+    private boolean isSettled(ChangeRecord record, Instant settledBefore) {
+        return null == record.getHappenedAt() || record.getHappenedAt().isBefore(settledBefore);
+    }
+
+    //One seek on the happenedAt index; null when nothing happened within the retention window
+    private Long getOldestRetained() {
+        Instant cutoff = Instant.now().minus(retentionDays, ChronoUnit.DAYS);
+        return testRequestFlowRepository.findIdsHappenedSince(cutoff, PageRequest.of(0, 1)).stream().findFirst().orElse(null);
+    }
+
+}
@@ -0,0 +1,18 @@
+package org.upgrad.upstac.testrequests.flow;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ChangePage {
+
+    private List<ChangeRecord> changes = new ArrayList<>();
+
+    //Cursor to ask for the next page with; unchanged when there was nothing new
+    private Long nextCursor;
+
+    //More changes are ready now; otherwise poll again later
+    private boolean hasMore;
+}
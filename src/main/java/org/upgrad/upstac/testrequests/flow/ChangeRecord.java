@@ -0,0 +1,23 @@
+package org.upgrad.upstac.testrequests.flow;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.upgrad.upstac.testrequests.RequestStatus;
+
+import java.time.Instant;
+
+//A status change as the change feed returns it; cursor is the flow id, to be passed back as since
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeRecord {
+
+    private Long cursor;
+    private Long requestId;
+    private Integer pinCode;
+    private RequestStatus from;
+    private RequestStatus to;
+    private String changedBy;
+    private Instant happenedAt;
+}
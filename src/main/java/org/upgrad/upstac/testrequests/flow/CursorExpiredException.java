@@ -0,0 +1,11 @@
+package org.upgrad.upstac.testrequests.flow;
+
+import org.upgrad.upstac.exception.AppException;
+
+//The changes after a cursor are no longer all kept; the consumer has to pull the full lists again
+public class CursorExpiredException extends AppException {
+
+    public CursorExpiredException(String message) {
+        super(message);
+    }
+}
@@ -1,17 +1,24 @@
 package org.upgrad.upstac.testrequests.flow;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.upgrad.upstac.shared.PersistentEntity;
 import org.upgrad.upstac.testrequests.RequestStatus;
 import org.upgrad.upstac.testrequests.TestRequest;
 import org.upgrad.upstac.users.User;
 
 import javax.persistence.*;
+import java.time.Instant;
 import java.time.LocalDate;
 
-@Data
+@Getter
+@Setter
+@ToString
 @Entity
-public class TestRequestFlow {
+@Table(indexes = @Index(name = "idx_test_request_flow_happened_at", columnList = "happenedAt"))
+public class TestRequestFlow extends PersistentEntity {
 
 
     @Id
@@ -22,20 +29,25 @@ public class TestRequestFlow {
 
     @ManyToOne
     @JsonIgnore
+    @ToString.Exclude
     private TestRequest request;
 
     private RequestStatus fromStatus ;
     private RequestStatus toStatus ;
 
     @ManyToOne
+    @ToString.Exclude
     private User changedBy;
 
     private LocalDate happenedOn=LocalDate.now();
 
+    //Milliseconds, so time spent in a status can be measured
+    @Column(columnDefinition = "datetime(3)")
+    private Instant happenedAt;
 
-
-
-
-
+    @Override
+    protected Object identity() {
+        return getId();
+    }
 
 }
@@ -1,8 +1,14 @@
 package org.upgrad.upstac.testrequests.flow;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.upgrad.upstac.testrequests.TestRequest;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,5 +28,21 @@ public interface TestRequestFlowRepository extends JpaRepository<TestRequestFlow
 
     List<TestRequestFlow> findByRequest(TestRequest request);
 
+    @Query("select f.request.requestId, f.id, f.fromStatus, f.toStatus, u.userName, f.happenedOn, f.happenedAt from TestRequestFlow f left join f.changedBy u " +
+            "where f.request.requestId in :ids order by f.id")
+    List<Object[]> findLogByRequestIds(@Param("ids") Collection<Long> ids);
+
+    //Walks the primary key from the cursor, so a page costs its own rows whatever the size of the table
+    @Query("select new org.upgrad.upstac.testrequests.flow.ChangeRecord(f.id, r.requestId, r.pinCode, f.fromStatus, f.toStatus, u.userName, f.happenedAt) " +
+            "from TestRequestFlow f join f.request r left join f.changedBy u where f.id > :since order by f.id")
+    List<ChangeRecord> findChangesAfter(@Param("since") Long since, Pageable pageable);
+
+    @Query("select f.id from TestRequestFlow f where f.happenedAt >= :cutoff order by f.happenedAt, f.id")
+    List<Long> findIdsHappenedSince(@Param("cutoff") Instant cutoff, Pageable pageable);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from TestRequestFlow f where f.request.requestId in :ids")
+    int deleteByRequestIds(@Param("ids") Collection<Long> ids);
+
 
 }
@@ -1,31 +1,76 @@
 package org.upgrad.upstac.testrequests.flow;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.validation.annotation.Validated;
 import org.upgrad.upstac.testrequests.TestRequest;
 import org.upgrad.upstac.testrequests.RequestStatus;
 import org.upgrad.upstac.users.User;
 
 import javax.transaction.Transactional;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 @Validated
 public class TestRequestFlowService {
 
+    @Value("${changes.settle-millis:5000}")
+    private long settleMillis;
+
     @Autowired
     private TestRequestFlowRepository testRequestFlowRepository;
 
+    private static final Logger log = LoggerFactory.getLogger(TestRequestFlowService.class);
+
 
     @Transactional
     public void log(TestRequest testRequest, RequestStatus from, RequestStatus to, User changedBy) {
+        log(Collections.singletonList(testRequest), from, to, changedBy, Instant.now());
+    }
+
+    @Transactional
+    public void log(List<TestRequest> testRequests, RequestStatus from, RequestStatus to, User changedBy, Instant happenedAt) {
+        List<TestRequestFlow> testRequestFlows = testRequests.stream()
+                .map(testRequest -> createFlow(testRequest, from, to, changedBy, happenedAt))
+                .collect(Collectors.toList());
+        testRequestFlowRepository.saveAll(testRequestFlows);
+        warnIfCommittedLate(happenedAt, testRequestFlows.size());
+    }
+
+    //The change feed only hands out flows settled for changes.settle-millis, so one committing later than that
+    //after happenedAt may sit below a cursor already handed out, and consumers would never see it
+    private void warnIfCommittedLate(Instant happenedAt, int flows) {
+        if (null == happenedAt || !TransactionSynchronizationManager.isSynchronizationActive())
+            return;
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                long lagMillis = Duration.between(happenedAt, Instant.now()).toMillis();
+                if (lagMillis > settleMillis)
+                    log.warn(flows + " flow(s) committed " + lagMillis + " ms after they happened, beyond changes.settle-millis="
+                            + settleMillis + "; change feed consumers may have skipped them");
+            }
+        });
+    }
+
+    private TestRequestFlow createFlow(TestRequest testRequest, RequestStatus from, RequestStatus to, User changedBy, Instant happenedAt) {
         TestRequestFlow testRequestFlow = new TestRequestFlow();
         testRequestFlow.setChangedBy(changedBy);
         testRequestFlow.setRequest(testRequest);
         testRequestFlow.setFromStatus(from);
         testRequestFlow.setToStatus(to);
-        testRequestFlowRepository.save(testRequestFlow);
+        testRequestFlow.setHappenedAt(happenedAt);
+        return testRequestFlow;
     }
 
 
@@ -7,18 +7,23 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 import org.upgrad.upstac.config.security.UserLoggedInService;
 import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.testrequests.BulkUpdateResult;
 import org.upgrad.upstac.testrequests.RequestStatus;
 import org.upgrad.upstac.testrequests.TestRequest;
 import org.upgrad.upstac.testrequests.TestRequestQueryService;
 import org.upgrad.upstac.testrequests.TestRequestUpdateService;
+import org.upgrad.upstac.testrequests.TestRequestVersionService;
 import org.upgrad.upstac.testrequests.flow.TestRequestFlowService;
 import org.upgrad.upstac.users.User;
 
 import javax.validation.ConstraintViolationException;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.upgrad.upstac.exception.UpgradResponseStatusException.asBadRequest;
 import static org.upgrad.upstac.exception.UpgradResponseStatusException.asConstraintViolation;
@@ -42,28 +47,51 @@ public class LabRequestController {
     @Autowired
     private TestRequestFlowService testRequestFlowService;
 
-
-
     @Autowired
-    private UserLoggedInService userLoggedInService;
+    private TestRequestVersionService testRequestVersionService;
 
+    @Autowired
+    private LabResultFileIngestService labResultFileIngestService;
 
+    @Autowired
+    private TesterCoverageService testerCoverageService;
 
-    @GetMapping("/to-be-tested")
-    @PreAuthorize("hasAnyRole('TESTER')")
-    public List<TestRequest> getForTests()  {
 
 
-       return testRequestQueryService.findBy(RequestStatus.INITIATED);
+    @Autowired
+    private UserLoggedInService userLoggedInService;
 
 
 
+    //Only the pin codes the tester serves; testers without any still see every request
+    @GetMapping("/to-be-tested")
+    @PreAuthorize("hasAnyRole('TESTER')")
+    public List<TestRequest> getForTests(WebRequest webRequest)  {
+
+       Set<Integer> pinCodes = testerCoverageService.getPinCodesFor(userLoggedInService.getLoggedInUserName());
+       if (pinCodes.isEmpty()) {
+           if (webRequest.checkNotModified(testRequestVersionService.getETagFor(RequestStatus.INITIATED)))
+               return null;
+           return testRequestQueryService.findBy(RequestStatus.INITIATED);
+       }
+
+       if (webRequest.checkNotModified(testRequestVersionService.getETagFor(RequestStatus.INITIATED, pinCodes)))
+           return null;
+       return testRequestQueryService.findBy(RequestStatus.INITIATED, pinCodes);
+    }
 
+    @GetMapping("/coverage")
+    @PreAuthorize("hasAnyRole('TESTER')")
+    public Set<Integer> getCoverage() {
+        return testerCoverageService.getPinCodesFor(userLoggedInService.getLoggedInUserName());
     }
 
     @GetMapping
     @PreAuthorize("hasAnyRole('TESTER')")
-    public List<TestRequest> getForTester()  {
+    public List<TestRequest> getForTester(WebRequest webRequest)  {
+
+        if (webRequest.checkNotModified(testRequestVersionService.getETagForUser(userLoggedInService.getLoggedInUserName())))
+            return null;
 
         User tester = userLoggedInService.getLoggedInUser();
         return testRequestQueryService.findByTester(tester);
@@ -71,6 +99,19 @@ public class LabRequestController {
     }
 
 
+    //Every patient's details, so only for the authority; testers and doctors see their own requests
+    @GetMapping("/low-oxygen")
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public List<TestRequest> getWithLowOxygen(@RequestParam(defaultValue = "92") Integer below, @RequestParam(defaultValue = "24") Integer hours,
+                                              @RequestParam(defaultValue = "100") Integer size) {
+        try {
+            return testRequestQueryService.findWithOxygenBelow(below, hours, size);
+        } catch (AppException e) {
+            throw asBadRequest(e.getMessage());
+        }
+    }
+
+
     @PreAuthorize("hasAnyRole('TESTER')")
     @PutMapping("/assign/{id}")
     public TestRequest assignForLabTest(@PathVariable Long id) {
@@ -82,6 +123,17 @@ public class LabRequestController {
         }
     }
 
+    @PreAuthorize("hasAnyRole('TESTER')")
+    @PutMapping("/assign")
+    public List<TestRequest> assignAllForLabTest(@RequestBody List<Long> ids) {
+        try {
+            User tester =userLoggedInService.getLoggedInUser();
+            return   testRequestUpdateService.assignForLabTest(ids,tester);
+        }catch (AppException e) {
+            throw asBadRequest(e.getMessage());
+        }
+    }
+
     @PreAuthorize("hasAnyRole('TESTER')")
     @PutMapping("/update/{id}")
     public TestRequest updateLabTest(@PathVariable Long id,@RequestBody CreateLabResult createLabResult) {
@@ -99,8 +151,26 @@ public class LabRequestController {
         }
     }
 
+    @PreAuthorize("hasAnyRole('TESTER')")
+    @PutMapping("/update")
+    public BulkUpdateResult updateLabTests(@RequestBody Map<Long, CreateLabResult> createLabResults) {
 
+        try {
+
+            User tester=userLoggedInService.getLoggedInUser();
+            return testRequestUpdateService.updateLabTests(createLabResults,tester);
 
 
+        } catch (AppException e) {
+            throw asBadRequest(e.getMessage());
+        }
+    }
+
+    @PreAuthorize("hasAnyRole('TESTER','GOVERNMENT_AUTHORITY')")
+    @GetMapping("/ingest")
+    public LabResultIngestStatus getIngestStatus() {
+        return labResultFileIngestService.getStatus();
+    }
+
 
 }
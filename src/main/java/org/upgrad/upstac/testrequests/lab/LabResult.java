@@ -1,17 +1,27 @@
 package org.upgrad.upstac.testrequests.lab;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.ToString;
+import org.upgrad.upstac.shared.PersistentEntity;
 import org.upgrad.upstac.testrequests.TestRequest;
 import org.upgrad.upstac.users.User;
 
 import javax.persistence.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
-@Data
+@Getter
+@Setter
+@ToString
 @Entity
-public class LabResult {
+@Table(indexes = {
+        @Index(name = "idx_lab_result_updated_at", columnList = "updatedAt"),
+        @Index(name = "idx_lab_result_oxygen", columnList = "oxygenSaturation,updatedAt"),
+        @Index(name = "idx_lab_result_temperature", columnList = "temperatureCelsius,updatedAt")
+})
+public class LabResult extends PersistentEntity {
 
 
     @Id
@@ -30,9 +40,22 @@ public class LabResult {
     private String comments;
     private TestStatus result;
     private LocalDate updatedOn;
+    private LocalDateTime updatedAt;
+
+    //Parsed from the text fields above by VitalSignsParser; null when the text could not be read
+    private Integer systolic;
+    private Integer diastolic;
+    private Integer heartRate;
+    private Double temperatureCelsius;
+    private Integer oxygenSaturation;
 
     @ManyToOne
+    @ToString.Exclude
     private User tester;
 
+    @Override
+    protected Object identity() {
+        return getResultId();
+    }
 
 }
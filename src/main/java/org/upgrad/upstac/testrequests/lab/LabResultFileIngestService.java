@@ -0,0 +1,287 @@
+package org.upgrad.upstac.testrequests.lab;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.testrequests.BulkUpdateResult;
+import org.upgrad.upstac.testrequests.TestRequestUpdateService;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.UserService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static org.upgrad.upstac.shared.StringValidator.isNotEmptyOrNull;
+
+//Applies the CSV files lab analysers drop into file.lab-results-dir as lab results.
+//Each line is requestId,result,bloodPressure,heartBeat,temperature,oxygenLevel,comments; a header line is optional.
+//Files are streamed line by line and applied in blocks, then moved to processed/ or, with an .errors report, to failed/.
+@Component
+public class LabResultFileIngestService implements ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+    static final String HEADER_PREFIX = "requestId";
+    static final int LINES_PER_BLOCK = 100;
+    static final int POLL_SECONDS = 5;
+
+    //A file is only picked up once it has not been written to for this long
+    static final long SETTLE_MILLIS = 2000;
+
+    @Value("${file.lab-results-dir:}")
+    private String labResultsDir;
+
+    //Required once the directory is set; the results are recorded as this tester's
+    @Value("${lab.results.ingest-user:}")
+    private String ingestUserName;
+
+    @Autowired
+    private TestRequestUpdateService testRequestUpdateService;
+
+    @Autowired
+    private UserService userService;
+
+    private Path dropDirectory;
+    private WatchService watchService;
+    private Thread watcher;
+    private volatile boolean running;
+
+    //Files that were applied but could not be moved away, with the modified time they had; skipped until they change
+    private final Map<Path, Long> unmovable = new ConcurrentHashMap<>();
+
+    private final AtomicLong filesProcessed = new AtomicLong();
+    private final AtomicLong filesFailed = new AtomicLong();
+    private final AtomicLong resultsApplied = new AtomicLong();
+    private final AtomicLong lastLagMillis = new AtomicLong();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+
+    private static final Logger log = LoggerFactory.getLogger(LabResultFileIngestService.class);
+
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+
+        if (isNotEmptyOrNull(labResultsDir) && null == watcher)
+            start();
+    }
+
+    void start() {
+        if (!isNotEmptyOrNull(ingestUserName))
+            throw new AppException("lab.results.ingest-user has to be set to ingest lab results from " + labResultsDir);
+
+        try {
+            openDropDirectory();
+
+            watchService = FileSystems.getDefault().newWatchService();
+            dropDirectory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new AppException("Unable to watch " + labResultsDir, e);
+        }
+
+        running = true;
+        watcher = new Thread(this::watch, "lab-results-ingest");
+        watcher.setDaemon(true);
+        watcher.start();
+        log.info("watching " + dropDirectory + " for lab result files");
+    }
+
+    void openDropDirectory() throws IOException {
+        dropDirectory = Paths.get(labResultsDir).toAbsolutePath();
+        Files.createDirectories(getProcessedDirectory());
+        Files.createDirectories(getFailedDirectory());
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        running = false;
+        if (null != watchService)
+            watchService.close();
+    }
+
+    //Events only wake the loop up; every pass rescans the directory, so files written before startup
+    //or lost to an overflowed watch key are still picked up
+    void watch() {
+        while (running) {
+            try {
+                WatchKey key = watchService.poll(POLL_SECONDS, TimeUnit.SECONDS);
+                if (null != key) {
+                    key.pollEvents();
+                    key.reset();
+                }
+                getReadyFiles().forEach(this::ingest);
+
+            } catch (ClosedWatchServiceException | InterruptedException e) {
+                running = false;
+            } catch (RuntimeException e) {
+                log.error("lab result ingest pass failed", e);
+            }
+        }
+    }
+
+    List<Path> getReadyFiles() {
+        long settledBefore = System.currentTimeMillis() - SETTLE_MILLIS;
+        List<Path> files = new ArrayList<>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dropDirectory, "*.{csv,CSV}")) {
+            for (Path file : stream) {
+                long modified = Files.getLastModifiedTime(file).toMillis();
+                if (modified < settledBefore && !Long.valueOf(modified).equals(unmovable.get(file)))
+                    files.add(file);
+            }
+        } catch (IOException e) {
+            throw new AppException("Unable to list " + dropDirectory, e);
+        }
+
+        files.sort(Comparator.comparing(Path::getFileName));
+        return files;
+    }
+
+    void ingest(Path file) {
+        List<String> errors = new ArrayList<>();
+        long writtenAt = 0;
+
+        try {
+            writtenAt = Files.getLastModifiedTime(file).toMillis();
+            User tester = userService.findByUserName(ingestUserName);
+            if (null == tester)
+                throw new AppException("Ingest user " + ingestUserName + " does not exist");
+
+            readAndApply(file, tester, errors);
+            recordLag(System.currentTimeMillis() - writtenAt);
+
+        } catch (IOException | RuntimeException e) {
+            log.error("unable to ingest " + file, e);
+            errors.add("file: " + e.getMessage());
+        }
+
+        moveAfterIngest(file, writtenAt, errors);
+    }
+
+    private void readAndApply(Path file, User tester, List<String> errors) throws IOException {
+        Map<Long, CreateLabResult> block = new LinkedHashMap<>();
+        Map<Long, Integer> lineNumbers = new HashMap<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while (null != (line = reader.readLine())) {
+                lineNumber++;
+                if (line.trim().isEmpty() || line.startsWith(HEADER_PREFIX))
+                    continue;
+
+                try {
+                    String[] columns = line.split(",", 7);
+                    Long id = Long.valueOf(columns[0].trim());
+                    if (lineNumbers.containsKey(id))
+                        throw new AppException("duplicate request id " + id);
+
+                    block.put(id, toCreateLabResult(columns));
+                    lineNumbers.put(id, lineNumber);
+                } catch (RuntimeException e) {
+                    errors.add("line " + lineNumber + ": " + e.getMessage());
+                }
+
+                if (block.size() >= LINES_PER_BLOCK)
+                    applyBlock(block, tester, lineNumbers, errors);
+            }
+        }
+
+        applyBlock(block, tester, lineNumbers, errors);
+    }
+
+    private void applyBlock(Map<Long, CreateLabResult> block, User tester, Map<Long, Integer> lineNumbers, List<String> errors) {
+        if (block.isEmpty())
+            return;
+
+        BulkUpdateResult result = testRequestUpdateService.updateLabTests(block, tester);
+        resultsApplied.addAndGet(result.getUpdated().size());
+        result.getErrors().forEach((id, message) -> errors.add("line " + lineNumbers.get(id) + ": request " + id + " " + message));
+        block.clear();
+    }
+
+    static CreateLabResult toCreateLabResult(String[] columns) {
+        if (columns.length < 6)
+            throw new AppException("expected at least 6 columns but found " + columns.length);
+
+        CreateLabResult createLabResult = new CreateLabResult();
+        createLabResult.setResult(TestStatus.valueOf(columns[1].trim().toUpperCase()));
+        createLabResult.setBloodPressure(columns[2].trim());
+        createLabResult.setHeartBeat(columns[3].trim());
+        createLabResult.setTemperature(columns[4].trim());
+        createLabResult.setOxygenLevel(columns[5].trim());
+        if (columns.length > 6)
+            createLabResult.setComments(columns[6].trim());
+        return createLabResult;
+    }
+
+    private void moveAfterIngest(Path file, long writtenAt, List<String> errors) {
+        try {
+            if (errors.isEmpty()) {
+                Files.move(file, getTarget(getProcessedDirectory(), file));
+                unmovable.remove(file);
+                filesProcessed.incrementAndGet();
+            } else {
+                Path target = getTarget(getFailedDirectory(), file);
+                Files.move(file, target);
+                unmovable.remove(file);
+                Files.write(target.resolveSibling(target.getFileName() + ".errors"), errors, StandardCharsets.UTF_8);
+                filesFailed.incrementAndGet();
+                log.warn(file + " ingested with " + errors.size() + " error(s)");
+            }
+        } catch (NoSuchFileException e) {
+            //Another node watching the same directory moved it first
+            log.info(file + " was already moved by another node");
+        } catch (IOException e) {
+            //Left in place, it would be applied again on every pass
+            unmovable.put(file, writtenAt);
+            log.error("unable to move " + file + ", skipping it until it changes", e);
+        }
+    }
+
+    private Path getTarget(Path directory, Path file) {
+        Path target = directory.resolve(file.getFileName());
+        if (Files.exists(target))
+            target = directory.resolve(System.currentTimeMillis() + "-" + file.getFileName());
+        return target;
+    }
+
+    private void recordLag(long lagMillis) {
+        lastLagMillis.set(lagMillis);
+        maxLagMillis.accumulateAndGet(lagMillis, Math::max);
+    }
+
+    Path getProcessedDirectory() {
+        return dropDirectory.resolve("processed");
+    }
+
+    Path getFailedDirectory() {
+        return dropDirectory.resolve("failed");
+    }
+
+
+    public LabResultIngestStatus getStatus() {
+        LabResultIngestStatus status = new LabResultIngestStatus();
+        status.setEnabled(running);
+        status.setDirectory(null == dropDirectory ? null : dropDirectory.toString());
+        status.setPendingFiles(running ? getReadyFiles().size() : 0);
+        status.setFilesProcessed(filesProcessed.get());
+        status.setFilesFailed(filesFailed.get());
+        status.setResultsApplied(resultsApplied.get());
+        status.setLastLagMillis(lastLagMillis.get());
+        status.setMaxLagMillis(maxLagMillis.get());
+        return status;
+    }
+
+}
@@ -0,0 +1,18 @@
+package org.upgrad.upstac.testrequests.lab;
+
+import lombok.Data;
+
+@Data
+public class LabResultIngestStatus {
+
+    private boolean enabled;
+    private String directory;
+    private int pendingFiles;
+    private long filesProcessed;
+    private long filesFailed;
+    private long resultsApplied;
+
+    //Time from a file's last write until its results were applied
+    private long lastLagMillis;
+    private long maxLagMillis;
+}
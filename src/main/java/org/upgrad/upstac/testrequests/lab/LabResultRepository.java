@@ -1,9 +1,16 @@
 package org.upgrad.upstac.testrequests.lab;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.upgrad.upstac.testrequests.RequestStatus;
 import org.upgrad.upstac.testrequests.TestRequest;
 import org.upgrad.upstac.users.User;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,7 +30,35 @@ public interface LabResultRepository extends JpaRepository<LabResult,Long> {
 
     List<LabResult> findByTester(User user);
     Optional<LabResult> findByTesterAndRequest(User user,TestRequest testRequest);
+    List<LabResult> findByRequestIn(Collection<TestRequest> testRequests);
     Optional<LabResult> findByRequest(TestRequest request);
 
+    @Modifying(flushAutomatically = true)
+    @Query("delete from LabResult l where l.request.requestId in :ids")
+    int deleteByRequestIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select l.result, count(l) from LabResult l group by l.result")
+    List<Object[]> countByResult();
+
+    @Query("select t.pinCode, t.gender, t.age, l.result, count(l) from LabResult l join l.request t " +
+            "where l.result is not null and l.updatedAt >= :from and l.updatedAt < :to group by t.pinCode, t.gender, t.age, l.result")
+    List<Object[]> countResultsBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("select l.tester.userName, l.updatedOn, count(l) from LabResult l " +
+            "where l.result is not null and l.updatedAt >= :from and l.updatedAt < :to " +
+            "group by l.tester.userName, l.updatedOn order by l.updatedOn, l.tester.userName")
+    List<Object[]> countResultsByTesterBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    List<LabResult> findTop100ByResultIdGreaterThanAndUpdatedOnIsNotNullAndUpdatedAtIsNullOrderByResultId(Long resultId);
+
+    @Query("select l from LabResult l join fetch l.request t where t.priorityScore is null and l.updatedAt is not null order by l.resultId")
+    List<LabResult> findWithoutPriorityScore(Pageable pageable);
+
+    @Query("select min(l.updatedAt) from LabResult l where l.request.status = :status")
+    LocalDateTime findOldestResultAt(@Param("status") RequestStatus status);
+
+    @Query("select l.request from LabResult l where l.oxygenSaturation < :below and l.updatedAt >= :since order by l.oxygenSaturation")
+    List<TestRequest> findRequestsWithOxygenBelow(@Param("below") Integer below, @Param("since") LocalDateTime since, Pageable pageable);
+
 
 }
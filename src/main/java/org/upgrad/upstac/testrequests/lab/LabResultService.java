@@ -3,6 +3,7 @@ package org.upgrad.upstac.testrequests.lab;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 import org.upgrad.upstac.exception.AppException;
@@ -11,6 +12,10 @@ import org.upgrad.upstac.users.User;
 
 import javax.transaction.Transactional;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @Validated
@@ -29,28 +34,48 @@ public class LabResultService {
         LabResult labResult = new LabResult();
         labResult.setTester(tester);
         labResult.setRequest(testRequest);
-        return saveLabResult(labResult);
+        testRequest.setLabResult(labResult);
+        return labResult;
     }
 
-    @Transactional
-    LabResult saveLabResult(LabResult labResult) {
-        return labResultRepository.save(labResult);
-    }
 
 
+    @Transactional
+    public List<LabResult> assignForLabTest(List<TestRequest> testRequests, User tester) {
 
-    public LabResult assignForLabTest(TestRequest testRequest, User tester) {
+        List<LabResult> labResults = testRequests.stream()
+                .map(testRequest -> createLabResult(tester, testRequest))
+                .collect(Collectors.toList());
 
-        return createLabResult(tester, testRequest);
+        return labResultRepository.saveAll(labResults);
 
 
     }
 
 
-    public LabResult updateLabTest(TestRequest testRequest, CreateLabResult createLabResult) {
+    @Transactional
+    public List<LabResult> updateLabTest(List<TestRequest> testRequests, Map<Long, CreateLabResult> createLabResults) {
+
+        Map<Long, LabResult> labResults = labResultRepository.findByRequestIn(testRequests)
+                .stream()
+                .collect(Collectors.toMap(labResult -> labResult.getRequest().getRequestId(), labResult -> labResult));
+
+        for (TestRequest testRequest : testRequests) {
+            LabResult labResult = labResults.get(testRequest.getRequestId());
+            if (null == labResult)
+                throw new AppException("Invalid Request");
+
+            updateLabResult(labResult, createLabResults.get(testRequest.getRequestId()));
+            testRequest.setLabResult(labResult);
+            testRequest.setPriorityScore(SeverityScore.of(labResult, testRequest.getAge()));
+        }
+
+        return labResultRepository.saveAll(labResults.values());
+
 
-        LabResult labResult = labResultRepository.findByRequest(testRequest).orElseThrow(()-> new AppException("Invalid Request"));
+    }
 
+    private void updateLabResult(LabResult labResult, CreateLabResult createLabResult) {
         labResult.setBloodPressure(createLabResult.getBloodPressure());
         labResult.setComments(createLabResult.getComments());
         labResult.setHeartBeat(createLabResult.getHeartBeat());
@@ -58,10 +83,38 @@ public class LabResultService {
         labResult.setTemperature(createLabResult.getTemperature());
         labResult.setResult(createLabResult.getResult());
         labResult.setUpdatedOn(LocalDate.now());
+        labResult.setUpdatedAt(LocalDateTime.now());
+        VitalSignsParser.applyTo(labResult);
+    }
+
+    //Fills the typed vital columns of results written before they existed, one chunk per transaction.
+    //Returns the last result id handled, or null when there is nothing left.
+    @Transactional
+    public Long backfillVitals(Long afterResultId) {
+
+        List<LabResult> labResults = labResultRepository.findTop100ByResultIdGreaterThanAndUpdatedOnIsNotNullAndUpdatedAtIsNullOrderByResultId(afterResultId);
+        if (labResults.isEmpty())
+            return null;
 
-        return saveLabResult(labResult);
+        for (LabResult labResult : labResults) {
+            labResult.setUpdatedAt(labResult.getUpdatedOn().atStartOfDay());
+            VitalSignsParser.applyTo(labResult);
+        }
+
+        labResultRepository.saveAll(labResults);
+        return labResults.get(labResults.size() - 1).getResultId();
+    }
+
+    //Scores requests whose results were recorded before scores existed, one chunk per transaction.
+    //Returns how many were scored; each chunk is read afresh, as scored requests no longer match.
+    @Transactional
+    public int backfillPriorityScores() {
 
+        List<LabResult> labResults = labResultRepository.findWithoutPriorityScore(PageRequest.of(0, 100));
+        for (LabResult labResult : labResults)
+            labResult.getRequest().setPriorityScore(SeverityScore.of(labResult, labResult.getRequest().getAge()));
 
+        return labResults.size();
     }
 
 
@@ -0,0 +1,63 @@
+package org.upgrad.upstac.testrequests.lab;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+//Migrates results recorded before the typed vital columns existed, then scores their requests for the
+//consultation queue, in the background after startup. Only rows still missing either are picked up,
+//so once it has caught up a restart costs two queries.
+@Component
+public class LabResultVitalsBackfill implements ApplicationListener<ApplicationReadyEvent> {
+
+    @Value("${lab.vitals-backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    @Autowired
+    private LabResultService labResultService;
+
+    private static final Logger log = LoggerFactory.getLogger(LabResultVitalsBackfill.class);
+
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!backfillOnStartup)
+            return;
+
+        Thread backfill = new Thread(this::run, "lab-result-vitals-backfill");
+        backfill.setDaemon(true);
+        backfill.start();
+    }
+
+    void run() {
+        long migrated = 0;
+        Long lastResultId = 0L;
+
+        try {
+            while (null != (lastResultId = labResultService.backfillVitals(lastResultId)))
+                migrated++;
+        } catch (RuntimeException e) {
+            log.error("vital sign backfill stopped", e);
+        }
+
+        if (migrated > 0)
+            log.info("vital sign backfill migrated " + migrated + " chunk(s) of lab results");
+
+        long scored = 0;
+        try {
+            int chunk;
+            while ((chunk = labResultService.backfillPriorityScores()) > 0)
+                scored += chunk;
+        } catch (RuntimeException e) {
+            log.error("priority score backfill stopped", e);
+        }
+
+        if (scored > 0)
+            log.info("priority score backfill scored " + scored + " request(s)");
+    }
+
+}
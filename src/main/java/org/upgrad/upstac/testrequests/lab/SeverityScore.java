@@ -0,0 +1,41 @@
+package org.upgrad.upstac.testrequests.lab;
+
+//How urgently a tested request needs a doctor, from 0 to 1000, higher first.
+//A positive result outweighs everything else; low oxygen, fever and age then order the results among themselves.
+//Vitals that could not be read count as normal.
+public class SeverityScore {
+
+    static final int POSITIVE = 500;
+
+    static final int NORMAL_OXYGEN = 95;
+    static final int PER_OXYGEN_POINT = 20;
+    static final int MAX_OXYGEN = 300;
+
+    static final double NORMAL_CELSIUS = 37.5;
+    static final int PER_CELSIUS = 40;
+    static final int MAX_TEMPERATURE = 120;
+
+    static final int ELDERLY_AGE = 60;
+    static final int PER_YEAR = 2;
+    static final int MAX_AGE = 80;
+
+    private SeverityScore() {
+    }
+
+
+    public static int of(LabResult labResult, Integer age) {
+        int score = labResult.getResult() == TestStatus.POSITIVE ? POSITIVE : 0;
+
+        if (null != labResult.getOxygenSaturation() && labResult.getOxygenSaturation() < NORMAL_OXYGEN)
+            score += Math.min(MAX_OXYGEN, (NORMAL_OXYGEN - labResult.getOxygenSaturation()) * PER_OXYGEN_POINT);
+
+        if (null != labResult.getTemperatureCelsius() && labResult.getTemperatureCelsius() > NORMAL_CELSIUS)
+            score += Math.min(MAX_TEMPERATURE, (int) Math.round((labResult.getTemperatureCelsius() - NORMAL_CELSIUS) * PER_CELSIUS));
+
+        if (null != age && age > ELDERLY_AGE)
+            score += Math.min(MAX_AGE, (age - ELDERLY_AGE) * PER_YEAR);
+
+        return score;
+    }
+
+}
@@ -0,0 +1,37 @@
+package org.upgrad.upstac.testrequests.lab;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.upgrad.upstac.shared.PersistentEntity;
+import org.upgrad.upstac.users.User;
+
+import javax.persistence.*;
+
+//A pin code a tester serves; testers without any are given their own User.pinCode
+@Getter
+@Setter
+@ToString
+@Entity
+@Table(indexes = @Index(name = "idx_tester_coverage_pin_code", columnList = "pinCode"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_tester_coverage", columnNames = {"tester_id", "pinCode"}))
+public class TesterCoverage extends PersistentEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JsonIgnore
+    @ToString.Exclude
+    private User tester;
+
+    private Integer pinCode;
+
+    @Override
+    protected Object identity() {
+        return getId();
+    }
+
+}
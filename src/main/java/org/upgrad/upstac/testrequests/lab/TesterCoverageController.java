@@ -0,0 +1,42 @@
+package org.upgrad.upstac.testrequests.lab;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.upgrad.upstac.exception.AppException;
+
+import java.util.Set;
+
+import static org.upgrad.upstac.exception.UpgradResponseStatusException.asBadRequest;
+
+
+@RestController
+@RequestMapping("/api/government/testers/{id}/coverage")
+public class TesterCoverageController {
+
+
+    @Autowired
+    private TesterCoverageService testerCoverageService;
+
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public Set<Integer> getCoverage(@PathVariable Long id) {
+        try {
+            return testerCoverageService.getCoverage(id);
+        } catch (AppException e) {
+            throw asBadRequest(e.getMessage());
+        }
+    }
+
+    @PutMapping
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public Set<Integer> updateCoverage(@PathVariable Long id, @RequestBody Set<Integer> pinCodes) {
+        try {
+            return testerCoverageService.updateCoverage(id, pinCodes);
+        } catch (AppException e) {
+            throw asBadRequest(e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+package org.upgrad.upstac.testrequests.lab;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.upgrad.upstac.users.User;
+
+import java.util.List;
+
+public interface TesterCoverageRepository extends JpaRepository<TesterCoverage, Long> {
+
+    @Query("select c.pinCode from TesterCoverage c where c.tester.userName = :userName order by c.pinCode")
+    List<Integer> findPinCodesByTesterUserName(@Param("userName") String userName);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from TesterCoverage c where c.tester = :tester")
+    int deleteByTester(@Param("tester") User tester);
+
+}
@@ -0,0 +1,113 @@
+package org.upgrad.upstac.testrequests.lab;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.UserService;
+import org.upgrad.upstac.users.UserUpdatedEvent;
+
+import javax.transaction.Transactional;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+//The pin codes whose requests make up each tester's queue. Kept per tester in memory so the queue's
+//ETag can be checked without a query; dropped once a change to the coverage or the tester commits.
+//The copy is per node, so a change made through another node shows here after coverage.cache-ttl-millis at most.
+@Service
+public class TesterCoverageService {
+
+    static final int MAX_PIN_CODES = 200;
+
+    @Autowired
+    private TesterCoverageRepository testerCoverageRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Value("${coverage.cache-ttl-millis:60000}")
+    private long cacheTtlMillis;
+
+    private final Map<String, CachedPinCodes> pinCodes = new ConcurrentHashMap<>();
+
+
+    //Empty when the tester has neither coverage nor a pin code of their own
+    public Set<Integer> getPinCodesFor(String userName) {
+        long now = System.currentTimeMillis();
+        return pinCodes.compute(userName, (name, cached) ->
+                null == cached || cached.loadedAt < now - cacheTtlMillis ? new CachedPinCodes(loadPinCodes(name), now) : cached
+        ).pinCodes;
+    }
+
+    private Set<Integer> loadPinCodes(String userName) {
+        Set<Integer> covered = new TreeSet<>(testerCoverageRepository.findPinCodesByTesterUserName(userName));
+        if (covered.isEmpty()) {
+            User tester = userService.findByUserName(userName);
+            if (null != tester && null != tester.getPinCode())
+                covered.add(tester.getPinCode());
+        }
+        return Collections.unmodifiableSet(covered);
+    }
+
+    //Replaces the tester's coverage; an empty set puts them back on their own pin code
+    @Transactional
+    public Set<Integer> updateCoverage(Long testerId, Set<Integer> coveredPinCodes) {
+
+        if (null == coveredPinCodes || coveredPinCodes.size() > MAX_PIN_CODES || coveredPinCodes.contains(null))
+            throw new AppException("Coverage should be at most " + MAX_PIN_CODES + " pin codes");
+
+        User tester = userService.findById(testerId)
+                .filter(User::doesRoleIsTester)
+                .orElseThrow(() -> new AppException("Invalid Tester ID"));
+
+        testerCoverageRepository.deleteByTester(tester);
+        List<TesterCoverage> coverage = new ArrayList<>();
+        for (Integer pinCode : coveredPinCodes) {
+            TesterCoverage testerCoverage = new TesterCoverage();
+            testerCoverage.setTester(tester);
+            testerCoverage.setPinCode(pinCode);
+            coverage.add(testerCoverage);
+        }
+        testerCoverageRepository.saveAll(coverage);
+
+        applicationEventPublisher.publishEvent(new TesterCoverageUpdatedEvent(tester.getUserName()));
+        return new TreeSet<>(coveredPinCodes);
+    }
+
+    public Set<Integer> getCoverage(Long testerId) {
+        User tester = userService.findById(testerId)
+                .filter(User::doesRoleIsTester)
+                .orElseThrow(() -> new AppException("Invalid Tester ID"));
+        return getPinCodesFor(tester.getUserName());
+    }
+
+    //After commit, so a concurrent read cannot load the old coverage back in
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCoverageUpdated(TesterCoverageUpdatedEvent event) {
+        pinCodes.remove(event.getUserName());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserUpdated(UserUpdatedEvent event) {
+        event.getUserNames().forEach(pinCodes::remove);
+    }
+
+
+    private static class CachedPinCodes {
+
+        private final Set<Integer> pinCodes;
+        private final long loadedAt;
+
+        CachedPinCodes(Set<Integer> pinCodes, long loadedAt) {
+            this.pinCodes = pinCodes;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+}
@@ -0,0 +1,14 @@
+package org.upgrad.upstac.testrequests.lab;
+
+import lombok.Getter;
+
+//Published when a tester's coverage is replaced, so copies of it are dropped once the change is committed
+@Getter
+public class TesterCoverageUpdatedEvent {
+
+    private final String userName;
+
+    public TesterCoverageUpdatedEvent(String userName) {
+        this.userName = userName;
+    }
+}
@@ -0,0 +1,80 @@
+package org.upgrad.upstac.testrequests.lab;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//Reads the free-form vital signs testers enter into numbers for the typed LabResult columns.
+//A value that cannot be read or is outside a plausible range gives null; the entered text is always kept as is.
+public class VitalSignsParser {
+
+    private static final Pattern NUMBER = Pattern.compile("\\d+(\\.\\d+)?");
+    private static final Pattern BLOOD_PRESSURE = Pattern.compile("(\\d{2,3})\\s*(?:/\\s*(\\d{2,3}))?");
+
+    //Temperatures above this are taken to be in Fahrenheit
+    static final double MAX_CELSIUS = 45;
+
+    private VitalSignsParser() {
+    }
+
+
+    public static void applyTo(LabResult labResult) {
+        Integer[] bloodPressure = parseBloodPressure(labResult.getBloodPressure());
+        labResult.setSystolic(bloodPressure[0]);
+        labResult.setDiastolic(bloodPressure[1]);
+        labResult.setHeartRate(parseHeartRate(labResult.getHeartBeat()));
+        labResult.setTemperatureCelsius(parseTemperatureCelsius(labResult.getTemperature()));
+        labResult.setOxygenSaturation(parseOxygenSaturation(labResult.getOxygenLevel()));
+    }
+
+    //"120/80", "120 / 80" or just the systolic "120"
+    public static Integer[] parseBloodPressure(String input) {
+        Integer[] bloodPressure = new Integer[2];
+        if (null == input)
+            return bloodPressure;
+
+        Matcher matcher = BLOOD_PRESSURE.matcher(input.trim());
+        if (!matcher.lookingAt())
+            return bloodPressure;
+
+        bloodPressure[0] = inRange(Integer.valueOf(matcher.group(1)), 50, 260);
+        if (null != matcher.group(2))
+            bloodPressure[1] = inRange(Integer.valueOf(matcher.group(2)), 30, 160);
+        return bloodPressure;
+    }
+
+    public static Integer parseHeartRate(String input) {
+        Double value = firstNumber(input);
+        return null == value ? null : inRange((int) Math.round(value), 20, 250);
+    }
+
+    public static Double parseTemperatureCelsius(String input) {
+        Double value = firstNumber(input);
+        if (null == value)
+            return null;
+
+        if (value > MAX_CELSIUS)
+            value = (value - 32) * 5 / 9;
+
+        double celsius = Math.round(value * 10) / 10.0;
+        return celsius >= 30 && celsius <= MAX_CELSIUS ? celsius : null;
+    }
+
+    //"92" or "92%"
+    public static Integer parseOxygenSaturation(String input) {
+        Double value = firstNumber(input);
+        return null == value ? null : inRange((int) Math.round(value), 50, 100);
+    }
+
+    private static Double firstNumber(String input) {
+        if (null == input)
+            return null;
+
+        Matcher matcher = NUMBER.matcher(input);
+        return matcher.find() ? Double.valueOf(matcher.group()) : null;
+    }
+
+    private static Integer inRange(int value, int min, int max) {
+        return value >= min && value <= max ? value : null;
+    }
+
+}
@@ -0,0 +1,19 @@
+package org.upgrad.upstac.testrequests.positivity;
+
+public enum AgeBand {
+    UNKNOWN, UNDER_18, FROM_18_TO_29, FROM_30_TO_44, FROM_45_TO_59, FROM_60;
+
+    public static AgeBand of(Integer age) {
+        if (null == age || age < 0)
+            return UNKNOWN;
+        if (age < 18)
+            return UNDER_18;
+        if (age < 30)
+            return FROM_18_TO_29;
+        if (age < 45)
+            return FROM_30_TO_44;
+        if (age < 60)
+            return FROM_45_TO_59;
+        return FROM_60;
+    }
+}
@@ -0,0 +1,39 @@
+package org.upgrad.upstac.testrequests.positivity;
+
+import lombok.Getter;
+import org.upgrad.upstac.shared.PersistentEntity;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+//Lab results recorded per day, pin code, gender and age band; the source of the positivity reports
+@Getter
+@Setter
+@ToString
+@Entity
+@NoArgsConstructor
+@Table(indexes = @Index(name = "idx_daily_positivity_pin_code", columnList = "pinCode,reportedOn"))
+public class DailyPositivity extends PersistentEntity {
+
+    @EmbeddedId
+    private DailyPositivityId id;
+
+    private long tested;
+    private long positive;
+
+    public DailyPositivity(DailyPositivityId id) {
+        this.id = id;
+    }
+
+    public double getPositivityRate() {
+        return tested == 0 ? 0 : (double) positive / tested;
+    }
+
+    @Override
+    protected Object identity() {
+        return getId();
+    }
+
+}
@@ -0,0 +1,22 @@
+package org.upgrad.upstac.testrequests.positivity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.upgrad.upstac.users.models.Gender;
+
+import javax.persistence.Embeddable;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+@Embeddable
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyPositivityId implements Serializable {
+
+    private LocalDate reportedOn;
+    private Integer pinCode;
+    private Gender gender;
+    private AgeBand ageBand;
+}
@@ -0,0 +1,46 @@
+package org.upgrad.upstac.testrequests.positivity;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.upgrad.upstac.exception.AppException;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+//Rebuilds DailyPositivity from the lab results: nightly for the last days, and on demand for a backfill.
+//Each lab result is counted in its row by the transition that records it.
+@Component
+public class DailyPositivityJob {
+
+    static final int NIGHTLY_REBUILD_DAYS = 2;
+
+    @Autowired
+    private DailyPositivityService dailyPositivityService;
+
+    private static final Logger log = LoggerFactory.getLogger(DailyPositivityJob.class);
+
+
+    @Scheduled(cron = "${positivity.rebuild-cron:0 30 2 * * *}")
+    public void rebuildRecentDays() {
+        LocalDate today = LocalDate.now();
+        rebuild(today.minusDays(NIGHTLY_REBUILD_DAYS), today.minusDays(1));
+    }
+
+    //One transaction per day, so a long backfill does not hold every row at once
+    public int rebuild(LocalDate from, LocalDate to) {
+
+        if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= DailyPositivityService.MAX_RANGE_DAYS)
+            throw new AppException("Date range must be at most " + DailyPositivityService.MAX_RANGE_DAYS + " days");
+
+        int rows = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1))
+            rows += dailyPositivityService.rebuild(day);
+
+        log.info("rebuilt daily positivity from " + from + " to " + to + ", " + rows + " row(s)");
+        return rows;
+    }
+
+}
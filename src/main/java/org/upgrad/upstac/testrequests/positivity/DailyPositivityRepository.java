@@ -0,0 +1,38 @@
+package org.upgrad.upstac.testrequests.positivity;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.upgrad.upstac.users.models.Gender;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDate;
+import java.util.List;
+
+
+public interface DailyPositivityRepository extends JpaRepository<DailyPositivity, DailyPositivityId> {
+
+
+    @Query("select d from DailyPositivity d where d.id.reportedOn between :from and :to order by d.id.reportedOn, d.id.pinCode")
+    List<DailyPositivity> findByReportedOnBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select d from DailyPositivity d where d.id.pinCode = :pinCode and d.id.reportedOn between :from and :to order by d.id.reportedOn")
+    List<DailyPositivity> findByPinCodeAndReportedOnBetween(@Param("pinCode") Integer pinCode, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("update DailyPositivity d set d.tested = d.tested + :tested, d.positive = d.positive + :positive " +
+            "where d.id.reportedOn = :day and d.id.pinCode = :pinCode and d.id.gender = :gender and d.id.ageBand = :ageBand")
+    int increment(@Param("day") LocalDate day, @Param("pinCode") Integer pinCode, @Param("gender") Gender gender,
+                  @Param("ageBand") AgeBand ageBand, @Param("tested") long tested, @Param("positive") long positive);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select d from DailyPositivity d where d.id.reportedOn = :day")
+    List<DailyPositivity> lockByReportedOn(@Param("day") LocalDate day);
+
+    @Modifying(clearAutomatically = true)
+    @Query("delete from DailyPositivity d where d.id.reportedOn = :day")
+    int deleteByReportedOn(@Param("day") LocalDate day);
+
+}
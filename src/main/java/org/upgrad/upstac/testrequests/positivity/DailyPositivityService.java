@@ -0,0 +1,110 @@
+package org.upgrad.upstac.testrequests.positivity;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.archive.ArchivedTestRequestRepository;
+import org.upgrad.upstac.testrequests.lab.LabResult;
+import org.upgrad.upstac.testrequests.lab.LabResultRepository;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+import org.upgrad.upstac.users.models.Gender;
+
+import javax.transaction.Transactional;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+@Service
+public class DailyPositivityService {
+
+    public static final int MAX_RANGE_DAYS = 366;
+
+    @Autowired
+    private DailyPositivityRepository dailyPositivityRepository;
+
+    @Autowired
+    private LabResultRepository labResultRepository;
+
+    @Autowired
+    private ArchivedTestRequestRepository archivedTestRequestRepository;
+
+    private static final Comparator<DailyPositivityId> KEY_ORDER = Comparator.comparing(DailyPositivityId::getReportedOn)
+            .thenComparing(DailyPositivityId::getPinCode)
+            .thenComparing(DailyPositivityId::getGender)
+            .thenComparing(DailyPositivityId::getAgeBand);
+
+
+    //Requests without a pin code or gender are counted under pin code 0 and OTHER
+    static DailyPositivityId getIdFor(LocalDate day, Integer pinCode, Gender gender, Integer age) {
+        return new DailyPositivityId(day, null == pinCode ? 0 : pinCode, null == gender ? Gender.OTHER : gender, AgeBand.of(age));
+    }
+
+
+    //Runs in the transaction that records the lab results, so a result and its count commit together.
+    //Rows are updated in key order, so overlapping batches wait for each other instead of deadlocking.
+    @Transactional
+    public void record(List<TestRequest> testRequests) {
+
+        Map<DailyPositivityId, DailyPositivity> counts = new TreeMap<>(KEY_ORDER);
+        for (TestRequest testRequest : testRequests) {
+            LabResult labResult = testRequest.getLabResult();
+            DailyPositivityId id = getIdFor(labResult.getUpdatedAt().toLocalDate(), testRequest.getPinCode(), testRequest.getGender(), testRequest.getAge());
+            DailyPositivity count = counts.computeIfAbsent(id, DailyPositivity::new);
+            count.setTested(count.getTested() + 1);
+            if (labResult.getResult() == TestStatus.POSITIVE)
+                count.setPositive(count.getPositive() + 1);
+        }
+
+        List<DailyPositivity> newRows = new ArrayList<>();
+        for (DailyPositivity count : counts.values()) {
+            DailyPositivityId id = count.getId();
+            if (0 == dailyPositivityRepository.increment(id.getReportedOn(), id.getPinCode(), id.getGender(), id.getAgeBand(), count.getTested(), count.getPositive()))
+                newRows.add(count);
+        }
+
+        //A transaction inserting the same new row at the same time makes this one fail on the key, rolling back its results with it
+        if (!newRows.isEmpty())
+            dailyPositivityRepository.saveAll(newRows);
+    }
+
+
+    //Recomputes one day from the lab results, working and archived; running it again gives the same rows.
+    //The day's rows are locked before counting, so a result committing meanwhile is either counted here
+    //or waits and is added to the rebuilt row, never both.
+    @Transactional
+    public int rebuild(LocalDate day) {
+
+        dailyPositivityRepository.lockByReportedOn(day);
+
+        List<Object[]> counts = new ArrayList<>(labResultRepository.countResultsBetween(day.atStartOfDay(), day.plusDays(1).atStartOfDay()));
+        counts.addAll(archivedTestRequestRepository.countResultsBetween(day.atStartOfDay(), day.plusDays(1).atStartOfDay()));
+
+        Map<DailyPositivityId, DailyPositivity> rows = new LinkedHashMap<>();
+        for (Object[] count : counts) {
+            DailyPositivityId id = getIdFor(day, (Integer) count[0], (Gender) count[1], (Integer) count[2]);
+            DailyPositivity row = rows.computeIfAbsent(id, DailyPositivity::new);
+            long results = (Long) count[4];
+            row.setTested(row.getTested() + results);
+            if (count[3] == TestStatus.POSITIVE)
+                row.setPositive(row.getPositive() + results);
+        }
+
+        dailyPositivityRepository.deleteByReportedOn(day);
+        dailyPositivityRepository.flush();
+        dailyPositivityRepository.saveAll(rows.values());
+        return rows.size();
+    }
+
+
+    public List<DailyPositivity> findBetween(LocalDate from, LocalDate to, Integer pinCode) {
+
+        if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS)
+            throw new AppException("Date range must be at most " + MAX_RANGE_DAYS + " days");
+
+        if (null == pinCode)
+            return dailyPositivityRepository.findByReportedOnBetween(from, to);
+        return dailyPositivityRepository.findByPinCodeAndReportedOnBetween(pinCode, from, to);
+    }
+
+}
@@ -0,0 +1,48 @@
+package org.upgrad.upstac.testrequests.positivity;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.upgrad.upstac.exception.AppException;
+
+import java.util.List;
+
+import static org.upgrad.upstac.exception.UpgradResponseStatusException.asBadRequest;
+import static org.upgrad.upstac.shared.DateParser.getDateFromString;
+
+
+@RestController
+@RequestMapping("/api/government/positivity")
+public class PositivityController {
+
+
+    @Autowired
+    private DailyPositivityService dailyPositivityService;
+
+    @Autowired
+    private DailyPositivityJob dailyPositivityJob;
+
+
+    //Dates are yyyy-MM-dd and inclusive
+    @GetMapping
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public List<DailyPositivity> getPositivity(@RequestParam String from, @RequestParam String to, @RequestParam(required = false) Integer pinCode) {
+        try {
+            return dailyPositivityService.findBetween(getDateFromString(from), getDateFromString(to), pinCode);
+        } catch (AppException e) {
+            throw asBadRequest(e.getMessage());
+        }
+    }
+
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public int rebuild(@RequestParam String from, @RequestParam String to) {
+        try {
+            return dailyPositivityJob.rebuild(getDateFromString(from), getDateFromString(to));
+        } catch (AppException e) {
+            throw asBadRequest(e.getMessage());
+        }
+    }
+
+
+}
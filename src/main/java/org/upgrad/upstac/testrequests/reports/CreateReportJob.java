@@ -0,0 +1,22 @@
+package org.upgrad.upstac.testrequests.reports;
+
+import lombok.Data;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.export.TestRequestExportService;
+
+import javax.validation.constraints.NotNull;
+
+@Data
+public class CreateReportJob {
+
+    @NotNull
+    private ReportType type;
+
+    //yyyy-MM-dd, inclusive
+    private String from;
+    private String to;
+
+    private RequestStatus status;
+    private Integer pinCode;
+    private TestRequestExportService.Format format = TestRequestExportService.Format.CSV;
+}
@@ -0,0 +1,77 @@
+package org.upgrad.upstac.testrequests.reports;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.upgrad.upstac.config.security.UserLoggedInService;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.users.User;
+
+import javax.validation.ConstraintViolationException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.upgrad.upstac.exception.UpgradResponseStatusException.asBadRequest;
+import static org.upgrad.upstac.exception.UpgradResponseStatusException.asConstraintViolation;
+
+
+@RestController
+@RequestMapping("/api/government/reports")
+public class ReportController {
+
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @Autowired
+    private UserLoggedInService userLoggedInService;
+
+
+    @PostMapping
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public ReportJob submitReport(@RequestBody CreateReportJob createReportJob) {
+        try {
+            User user = userLoggedInService.getLoggedInUser();
+            return reportJobService.submit(createReportJob, user);
+        } catch (ConstraintViolationException e) {
+            throw asConstraintViolation(e);
+        } catch (AppException e) {
+            throw asBadRequest(e.getMessage());
+        }
+    }
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public List<ReportJob> getReports() {
+        return reportJobService.getJobs(userLoggedInService.getLoggedInUser());
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public ReportJob getReport(@PathVariable Long id) {
+        try {
+            return reportJobService.getJob(id, userLoggedInService.getLoggedInUser());
+        } catch (AppException e) {
+            throw asBadRequest(e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}/download")
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public ResponseEntity<Resource> downloadReport(@PathVariable Long id) {
+        try {
+            Path file = reportJobService.getReportFile(reportJobService.getJob(id, userLoggedInService.getLoggedInUser()));
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                    .body(new FileSystemResource(file));
+        } catch (AppException e) {
+            throw asBadRequest(e.getMessage());
+        }
+    }
+
+
+}
@@ -0,0 +1,64 @@
+package org.upgrad.upstac.testrequests.reports;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.upgrad.upstac.shared.PersistentEntity;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.export.TestRequestExportService;
+import org.upgrad.upstac.users.User;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@ToString
+@Entity
+@Table(indexes = @Index(name = "idx_report_job_status", columnList = "status,id"))
+public class ReportJob extends PersistentEntity {
+
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    Long id;
+
+    private ReportType type;
+    private ReportJobStatus status = ReportJobStatus.QUEUED;
+
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    private RequestStatus requestStatus;
+    private Integer pinCode;
+    private TestRequestExportService.Format format;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JsonIgnore
+    @ToString.Exclude
+    private User requestedBy;
+
+    private LocalDateTime requestedOn = LocalDateTime.now();
+
+    //The claim running the job, its node and when it was claimed, and when it last reported progress;
+    //a stale heartbeat puts the job back in the queue
+    private String claimedBy;
+    private LocalDateTime startedOn;
+    private LocalDateTime heartbeatOn;
+    private LocalDateTime finishedOn;
+
+    private long bytesWritten;
+    private Long rowsWritten;
+
+    @JsonIgnore
+    private String fileName;
+
+    private String error;
+
+    @Override
+    protected Object identity() {
+        return getId();
+    }
+
+}
@@ -0,0 +1,52 @@
+package org.upgrad.upstac.testrequests.reports;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.upgrad.upstac.users.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+
+public interface ReportJobRepository extends JpaRepository<ReportJob, Long> {
+
+
+    Optional<ReportJob> findByIdAndRequestedBy(Long id, User requestedBy);
+
+    List<ReportJob> findTop50ByRequestedByOrderByIdDesc(User requestedBy);
+
+    List<ReportJob> findTop10ByStatusOrderById(ReportJobStatus status);
+
+    //Only one node can move a job out of QUEUED
+    @Modifying
+    @Query("update ReportJob j set j.status = org.upgrad.upstac.testrequests.reports.ReportJobStatus.RUNNING, " +
+            "j.claimedBy = :node, j.startedOn = :now, j.heartbeatOn = :now " +
+            "where j.id = :id and j.status = org.upgrad.upstac.testrequests.reports.ReportJobStatus.QUEUED")
+    int claim(@Param("id") Long id, @Param("node") String node, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update ReportJob j set j.bytesWritten = :bytes, j.heartbeatOn = :now where j.id = :id and j.claimedBy = :node")
+    int heartbeat(@Param("id") Long id, @Param("node") String node, @Param("bytes") long bytes, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update ReportJob j set j.status = org.upgrad.upstac.testrequests.reports.ReportJobStatus.QUEUED, j.claimedBy = null " +
+            "where j.status = org.upgrad.upstac.testrequests.reports.ReportJobStatus.RUNNING and j.heartbeatOn < :before")
+    int requeueStale(@Param("before") LocalDateTime before);
+
+    //A node that lost its claim to a stale-heartbeat requeue cannot finish the job any more
+    @Modifying
+    @Query("update ReportJob j set j.status = :status, j.rowsWritten = :rows, j.bytesWritten = :bytes, j.fileName = :fileName, " +
+            "j.error = :error, j.finishedOn = :now " +
+            "where j.id = :id and j.claimedBy = :node and j.status = org.upgrad.upstac.testrequests.reports.ReportJobStatus.RUNNING")
+    int finish(@Param("id") Long id, @Param("node") String node, @Param("status") ReportJobStatus status, @Param("rows") Long rows,
+               @Param("bytes") long bytes, @Param("fileName") String fileName, @Param("error") String error, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update ReportJob j set j.status = org.upgrad.upstac.testrequests.reports.ReportJobStatus.QUEUED, j.claimedBy = null " +
+            "where j.id = :id and j.claimedBy = :node and j.status = org.upgrad.upstac.testrequests.reports.ReportJobStatus.RUNNING")
+    int release(@Param("id") Long id, @Param("node") String node);
+
+}
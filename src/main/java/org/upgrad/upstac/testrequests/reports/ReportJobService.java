@@ -0,0 +1,121 @@
+package org.upgrad.upstac.testrequests.reports;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.annotation.Validated;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.testrequests.positivity.DailyPositivityService;
+import org.upgrad.upstac.users.User;
+
+import javax.transaction.Transactional;
+import javax.validation.Valid;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.upgrad.upstac.shared.DateParser.getDateFromString;
+
+//Queue and lifecycle of report jobs. Every change after submission is a conditional update, so several
+//nodes can poll the same table: only the node that claimed a job moves it on.
+@Service
+@Validated
+public class ReportJobService {
+
+    @Value("${file.upload-dir:useruploads}")
+    private String uploadDir;
+
+    @Autowired
+    private ReportJobRepository reportJobRepository;
+
+
+    public ReportJob submit(@Valid CreateReportJob createReportJob, User user) {
+
+        ReportJob reportJob = new ReportJob();
+        reportJob.setType(createReportJob.getType());
+        reportJob.setFromDate(null == createReportJob.getFrom() ? null : getDateFromString(createReportJob.getFrom()));
+        reportJob.setToDate(null == createReportJob.getTo() ? null : getDateFromString(createReportJob.getTo()));
+        reportJob.setRequestStatus(createReportJob.getStatus());
+        reportJob.setPinCode(createReportJob.getPinCode());
+        reportJob.setFormat(createReportJob.getFormat());
+        reportJob.setRequestedBy(user);
+
+        LocalDate from = reportJob.getFromDate();
+        LocalDate to = reportJob.getToDate();
+        if (null != from && null != to && from.isAfter(to))
+            throw new AppException("From date is after to date");
+
+        if (createReportJob.getType() != ReportType.TEST_REQUEST_EXPORT) {
+            if (null == from || null == to)
+                throw new AppException("From and to dates are required for " + createReportJob.getType());
+            if (ChronoUnit.DAYS.between(from, to) >= DailyPositivityService.MAX_RANGE_DAYS)
+                throw new AppException("Date range must be at most " + DailyPositivityService.MAX_RANGE_DAYS + " days");
+        }
+
+        return reportJobRepository.save(reportJob);
+    }
+
+    public ReportJob getJob(Long id, User user) {
+        return reportJobRepository.findByIdAndRequestedBy(id, user)
+                .orElseThrow(() -> new AppException("Invalid Report ID"));
+    }
+
+    public List<ReportJob> getJobs(User user) {
+        return reportJobRepository.findTop50ByRequestedByOrderByIdDesc(user);
+    }
+
+    public Path getReportDirectory() {
+        return Paths.get(uploadDir, "reports").toAbsolutePath();
+    }
+
+    //Reports are written to the node that ran them, so file.upload-dir should be shared storage when there are several nodes
+    public Path getReportFile(ReportJob reportJob) {
+        if (reportJob.getStatus() != ReportJobStatus.COMPLETED)
+            throw new AppException("Report is " + reportJob.getStatus());
+
+        Path file = getReportDirectory().resolve(reportJob.getFileName());
+        if (!Files.isReadable(file))
+            throw new AppException("Report file is not available");
+        return file;
+    }
+
+
+    public List<ReportJob> findQueued() {
+        return reportJobRepository.findTop10ByStatusOrderById(ReportJobStatus.QUEUED);
+    }
+
+    @Transactional
+    public boolean claim(Long id, String node) {
+        return 1 == reportJobRepository.claim(id, node, LocalDateTime.now());
+    }
+
+    @Transactional
+    public boolean heartbeat(Long id, String node, long bytesWritten) {
+        return 1 == reportJobRepository.heartbeat(id, node, bytesWritten, LocalDateTime.now());
+    }
+
+    @Transactional
+    public boolean complete(Long id, String node, long rowsWritten, long bytesWritten, String fileName) {
+        return 1 == reportJobRepository.finish(id, node, ReportJobStatus.COMPLETED, rowsWritten, bytesWritten, fileName, null, LocalDateTime.now());
+    }
+
+    @Transactional
+    public boolean fail(Long id, String node, String error) {
+        return 1 == reportJobRepository.finish(id, node, ReportJobStatus.FAILED, null, 0, null, error, LocalDateTime.now());
+    }
+
+    @Transactional
+    public void release(Long id, String node) {
+        reportJobRepository.release(id, node);
+    }
+
+    @Transactional
+    public int requeueStale(LocalDateTime before) {
+        return reportJobRepository.requeueStale(before);
+    }
+
+}
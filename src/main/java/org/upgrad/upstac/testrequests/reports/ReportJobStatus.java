@@ -0,0 +1,5 @@
+package org.upgrad.upstac.testrequests.reports;
+
+public enum ReportJobStatus {
+    QUEUED, RUNNING, COMPLETED, FAILED
+}
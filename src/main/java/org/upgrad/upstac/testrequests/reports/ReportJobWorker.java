@@ -0,0 +1,264 @@
+package org.upgrad.upstac.testrequests.reports;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.upgrad.upstac.testrequests.archive.ArchivedTestRequestRepository;
+import org.upgrad.upstac.testrequests.export.TestRequestExportService;
+import org.upgrad.upstac.testrequests.lab.LabResultRepository;
+import org.upgrad.upstac.testrequests.positivity.DailyPositivity;
+import org.upgrad.upstac.testrequests.positivity.DailyPositivityService;
+
+import javax.annotation.PostConstruct;
+import java.io.*;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Polls the report job table and runs what this node manages to claim on a fixed number of worker threads.
+//A running job sends a heartbeat on a timer, whether or not it is writing; jobs whose claim stopped sending
+//heartbeats are put back in the queue for any node to pick up.
+@Component
+public class ReportJobWorker implements DisposableBean {
+
+    static final long HEARTBEAT_MILLIS = 5000;
+    static final long STALE_MINUTES = 10;
+
+    @Value("${report.workers:2}")
+    private int workers;
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @Autowired
+    private TestRequestExportService testRequestExportService;
+
+    @Autowired
+    private DailyPositivityService dailyPositivityService;
+
+    @Autowired
+    private LabResultRepository labResultRepository;
+
+    @Autowired
+    private ArchivedTestRequestRepository archivedTestRequestRepository;
+
+    private final String node = getHostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    private ThreadPoolExecutor executor;
+    private ScheduledExecutorService heartbeats;
+
+    private static final Logger log = LoggerFactory.getLogger(ReportJobWorker.class);
+
+
+    @PostConstruct
+    void createExecutor() {
+        AtomicInteger threads = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "report-worker-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "report-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+        heartbeats.shutdownNow();
+    }
+
+
+    @Scheduled(fixedDelayString = "${report.poll-millis:2000}")
+    public void poll() {
+
+        for (ReportJob reportJob : reportJobService.findQueued()) {
+            if (executor.getActiveCount() >= workers)
+                return;
+            String token = node + "-" + System.currentTimeMillis();
+            if (!reportJobService.claim(reportJob.getId(), token))
+                continue;
+
+            try {
+                executor.execute(() -> run(reportJob, token));
+            } catch (RejectedExecutionException e) {
+                reportJobService.release(reportJob.getId(), token);
+                return;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${report.requeue-millis:60000}")
+    public void requeueStale() {
+        int requeued = reportJobService.requeueStale(LocalDateTime.now().minusMinutes(STALE_MINUTES));
+        if (requeued > 0)
+            log.warn("requeued " + requeued + " report job(s) without a heartbeat for " + STALE_MINUTES + " minutes");
+    }
+
+
+    static String getFileName(ReportJob reportJob) {
+        String extension = reportJob.getType() == ReportType.TEST_REQUEST_EXPORT && reportJob.getFormat() == TestRequestExportService.Format.NDJSON ? "ndjson" : "csv";
+        return reportJob.getId() + "-" + reportJob.getType().name().toLowerCase() + "." + extension;
+    }
+
+    //The part file is named after the claim, so a node that lost its claim never writes or deletes the file of
+    //the node that took the job over
+    void run(ReportJob reportJob, String token) {
+        String fileName = getFileName(reportJob);
+        Path directory = reportJobService.getReportDirectory();
+        Path partFile = directory.resolve(fileName + "." + token + ".part");
+        Claim claim = new Claim(reportJob.getId(), token);
+        ScheduledFuture<?> heartbeat = heartbeats.scheduleWithFixedDelay(claim::heartbeat, HEARTBEAT_MILLIS, HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+
+        try {
+            Files.createDirectories(directory);
+            long rows;
+            try (ProgressOutputStream outputStream = new ProgressOutputStream(Files.newOutputStream(partFile), claim)) {
+                rows = write(reportJob, outputStream);
+            }
+
+            heartbeat.cancel(false);
+            claim.heartbeat();
+            if (claim.lost)
+                throw new IOException("Report job " + reportJob.getId() + " is no longer claimed by " + token);
+
+            Files.move(partFile, directory.resolve(fileName), StandardCopyOption.REPLACE_EXISTING);
+            if (!reportJobService.complete(reportJob.getId(), token, rows, claim.bytesWritten.get(), fileName))
+                log.warn("report job " + reportJob.getId() + " was taken over by another node before it finished here");
+
+        } catch (IOException | RuntimeException e) {
+            log.error("report job " + reportJob.getId() + " failed", e);
+            reportJobService.fail(reportJob.getId(), token, String.valueOf(e.getMessage()));
+            try {
+                Files.deleteIfExists(partFile);
+            } catch (IOException ignored) {
+                //Left behind under this claim's name; nothing else reads it
+            }
+        } finally {
+            heartbeat.cancel(false);
+        }
+    }
+
+    long write(ReportJob reportJob, OutputStream outputStream) throws IOException {
+        switch (reportJob.getType()) {
+            case TEST_REQUEST_EXPORT:
+                return testRequestExportService.export(outputStream, reportJob.getFormat(), reportJob.getRequestStatus(), reportJob.getFromDate(), reportJob.getToDate());
+            case DAILY_POSITIVITY:
+                return writeDailyPositivity(reportJob, outputStream);
+            case TESTER_PRODUCTIVITY:
+                return writeTesterProductivity(reportJob, outputStream);
+            default:
+                throw new IllegalStateException("No report for " + reportJob.getType());
+        }
+    }
+
+    private long writeDailyPositivity(ReportJob reportJob, OutputStream outputStream) throws IOException {
+        long rows = 0;
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.println("day,pinCode,gender,ageBand,tested,positive,positivityRate");
+        for (DailyPositivity row : dailyPositivityService.findBetween(reportJob.getFromDate(), reportJob.getToDate(), reportJob.getPinCode())) {
+            writer.println(row.getId().getReportedOn() + "," + row.getId().getPinCode() + "," + row.getId().getGender() + ","
+                    + row.getId().getAgeBand() + "," + row.getTested() + "," + row.getPositive() + "," + row.getPositivityRate());
+            rows++;
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private long writeTesterProductivity(ReportJob reportJob, OutputStream outputStream) throws IOException {
+        long rows = 0;
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.println("day,tester,results");
+        LocalDateTime from = reportJob.getFromDate().atStartOfDay();
+        LocalDateTime to = reportJob.getToDate().plusDays(1).atStartOfDay();
+
+        //Keyed by day then tester, adding archived results to the working ones
+        Map<String, Long> results = new TreeMap<>();
+        for (Object[] count : labResultRepository.countResultsByTesterBetween(from, to))
+            results.merge(count[1] + "," + count[0], (Long) count[2], Long::sum);
+        for (Object[] count : archivedTestRequestRepository.countResultsByTesterBetween(from, to))
+            results.merge(count[1] + "," + count[0], (Long) count[2], Long::sum);
+
+        for (Map.Entry<String, Long> result : results.entrySet()) {
+            writer.println(result.getKey() + "," + result.getValue());
+            rows++;
+        }
+        writer.flush();
+        return rows;
+    }
+
+
+    //One claim of a job: the token it is claimed under, the bytes written so far and whether it was lost
+    class Claim {
+        private final Long jobId;
+        private final String token;
+        private final AtomicLong bytesWritten = new AtomicLong();
+        private volatile boolean lost;
+
+        Claim(Long jobId, String token) {
+            this.jobId = jobId;
+            this.token = token;
+        }
+
+        void heartbeat() {
+            try {
+                if (!reportJobService.heartbeat(jobId, token, bytesWritten.get()))
+                    lost = true;
+            } catch (RuntimeException e) {
+                log.warn("heartbeat of report job " + jobId + " failed", e);
+            }
+        }
+    }
+
+    //Counts what is written for the heartbeat and stops the job once its claim is lost
+    static class ProgressOutputStream extends FilterOutputStream {
+        private final Claim claim;
+
+        ProgressOutputStream(OutputStream outputStream, Claim claim) {
+            super(new BufferedOutputStream(outputStream));
+            this.claim = claim;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            written(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            written(len);
+        }
+
+        private void written(int bytes) throws IOException {
+            claim.bytesWritten.addAndGet(bytes);
+            if (claim.lost)
+                throw new IOException("Report job " + claim.jobId + " is no longer claimed by " + claim.token);
+        }
+    }
+
+    private static String getHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return "node";
+        }
+    }
+
+}
@@ -0,0 +1,5 @@
+package org.upgrad.upstac.testrequests.reports;
+
+public enum ReportType {
+    TEST_REQUEST_EXPORT, DAILY_POSITIVITY, TESTER_PRODUCTIVITY
+}
@@ -0,0 +1,96 @@
+package org.upgrad.upstac.testrequests.stats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//Log-linear histogram of millisecond durations, bucketed the way HdrHistogram does: values below 2^subBucketBits
+//are counted exactly and above that each power of two is split into 2^subBucketBits buckets, so a reported
+//percentile is within 1 / 2^subBucketBits of the recorded value. Recording is lock-free and allocation-free.
+public class LatencyHistogram {
+
+    //About two years; longer durations are counted as this
+    public static final long MAX_VALUE = (1L << 36) - 1;
+
+    private final int subBucketBits;
+    private final AtomicLongArray counts;
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong();
+
+
+    public LatencyHistogram(int subBucketBits) {
+        this.subBucketBits = subBucketBits;
+        this.counts = new AtomicLongArray(indexOf(MAX_VALUE) + 1);
+    }
+
+    public void record(long millis) {
+        long value = Math.min(Math.max(millis, 0), MAX_VALUE);
+        counts.incrementAndGet(indexOf(value));
+        total.increment();
+        sum.add(value);
+        min.accumulateAndGet(value, Math::min);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    int indexOf(long value) {
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        if (highestBit < subBucketBits)
+            return (int) value;
+
+        int shift = highestBit - subBucketBits;
+        return (int) ((shift << subBucketBits) + (value >>> shift));
+    }
+
+    //The largest value counted in the bucket, as HdrHistogram reports percentiles
+    long highestValueAt(int index) {
+        if (index < (1 << subBucketBits))
+            return index;
+
+        int shift = (index >> subBucketBits) - 1;
+        long subBucket = index - ((long) shift << subBucketBits);
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+
+    public long getCount() {
+        return total.sum();
+    }
+
+    public TransitionLatency getLatency() {
+        long[] snapshot = new long[counts.length()];
+        long count = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+
+        TransitionLatency latency = new TransitionLatency();
+        latency.setCount(count);
+        if (0 == count)
+            return latency;
+
+        long highest = max.get();
+        latency.setMinMillis(min.get());
+        latency.setMaxMillis(highest);
+        latency.setMeanMillis(sum.sum() / Math.max(total.sum(), 1));
+        latency.setP50Millis(Math.min(valueAtPercentile(snapshot, count, 50), highest));
+        latency.setP90Millis(Math.min(valueAtPercentile(snapshot, count, 90), highest));
+        latency.setP95Millis(Math.min(valueAtPercentile(snapshot, count, 95), highest));
+        latency.setP99Millis(Math.min(valueAtPercentile(snapshot, count, 99), highest));
+        return latency;
+    }
+
+    private long valueAtPercentile(long[] snapshot, long count, double percentile) {
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank)
+                return highestValueAt(i);
+        }
+        return MAX_VALUE;
+    }
+
+}
@@ -0,0 +1,36 @@
+package org.upgrad.upstac.testrequests.stats;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+
+
+    @Autowired
+    private TestRequestStatsService testRequestStatsService;
+
+    @Autowired
+    private TurnaroundService turnaroundService;
+
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public TestRequestStats getStats() {
+        return testRequestStatsService.getStats();
+    }
+
+    @GetMapping("/turnaround")
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public TurnaroundStats getTurnaround(@RequestParam(required = false) Integer pinCode) {
+        return turnaroundService.getStats(pinCode);
+    }
+
+
+}
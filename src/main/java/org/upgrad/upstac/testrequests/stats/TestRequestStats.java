@@ -0,0 +1,19 @@
+package org.upgrad.upstac.testrequests.stats;
+
+import lombok.Data;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.consultation.DoctorSuggestion;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+public class TestRequestStats {
+
+    private Map<RequestStatus, Long> requests = new EnumMap<>(RequestStatus.class);
+    private Map<TestStatus, Long> results = new EnumMap<>(TestStatus.class);
+    private Map<DoctorSuggestion, Long> suggestions = new EnumMap<>(DoctorSuggestion.class);
+    private LocalDateTime reconciledOn;
+}
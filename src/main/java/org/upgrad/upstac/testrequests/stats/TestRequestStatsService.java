@@ -0,0 +1,117 @@
+package org.upgrad.upstac.testrequests.stats;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestRepository;
+import org.upgrad.upstac.testrequests.TestRequestStatusChangedEvent;
+import org.upgrad.upstac.testrequests.archive.ArchivedTestRequestRepository;
+import org.upgrad.upstac.testrequests.consultation.ConsultationRepository;
+import org.upgrad.upstac.testrequests.consultation.DoctorSuggestion;
+import org.upgrad.upstac.testrequests.lab.LabResultRepository;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+//Counts of requests per status, lab results per outcome and consultations per suggestion for the authority dashboard.
+//Kept in memory and moved by every committed status change; seeded from one grouped query per table at startup
+//and reconciled against the database periodically, which also corrects changes that raced a reconciliation.
+@Service
+public class TestRequestStatsService {
+
+    @Autowired
+    private TestRequestRepository testRequestRepository;
+
+    @Autowired
+    private LabResultRepository labResultRepository;
+
+    @Autowired
+    private ConsultationRepository consultationRepository;
+
+    @Autowired
+    private ArchivedTestRequestRepository archivedTestRequestRepository;
+
+    private final Map<RequestStatus, LongAdder> requests = createCounters(RequestStatus.class);
+    private final Map<TestStatus, LongAdder> results = createCounters(TestStatus.class);
+    private final Map<DoctorSuggestion, LongAdder> suggestions = createCounters(DoctorSuggestion.class);
+
+    private volatile LocalDateTime reconciledOn;
+
+    private static final Logger log = LoggerFactory.getLogger(TestRequestStatsService.class);
+
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(TestRequestStatusChangedEvent event) {
+
+        if (null != event.getFrom())
+            requests.get(event.getFrom()).decrement();
+        requests.get(event.getTo()).increment();
+
+        TestRequest testRequest = event.getTestRequest();
+        if (event.getTo() == RequestStatus.LAB_TEST_COMPLETED && null != testRequest.getLabResult() && null != testRequest.getLabResult().getResult())
+            results.get(testRequest.getLabResult().getResult()).increment();
+
+        if (event.getTo() == RequestStatus.COMPLETED && null != testRequest.getConsultation() && null != testRequest.getConsultation().getSuggestion())
+            suggestions.get(testRequest.getConsultation().getSuggestion()).increment();
+    }
+
+
+    @Scheduled(fixedDelayString = "${stats.reconcile-millis:300000}")
+    public void reconcile() {
+
+        List<Object[]> archived = Collections.singletonList(new Object[]{RequestStatus.COMPLETED, archivedTestRequestRepository.count()});
+        long drift = reconcile(requests, testRequestRepository.countByStatus(), archived)
+                + reconcile(results, labResultRepository.countByResult(), archivedTestRequestRepository.countByResult())
+                + reconcile(suggestions, consultationRepository.countBySuggestion(), archivedTestRequestRepository.countBySuggestion());
+
+        if (null != reconciledOn && drift != 0)
+            log.warn("dashboard counters were off by " + drift + ", reconciled with the database");
+        reconciledOn = LocalDateTime.now();
+    }
+
+    //Working and archived rows are counted separately and added up
+    private <E extends Enum<E>> long reconcile(Map<E, LongAdder> counters, List<Object[]> counts, List<Object[]> archivedCounts) {
+        Map<Object, Long> actual = new HashMap<>();
+        for (Object[] count : counts)
+            actual.merge(count[0], (Long) count[1], Long::sum);
+        for (Object[] count : archivedCounts)
+            actual.merge(count[0], (Long) count[1], Long::sum);
+
+        long drift = 0;
+        for (Map.Entry<E, LongAdder> counter : counters.entrySet()) {
+            long difference = actual.getOrDefault(counter.getKey(), 0L) - counter.getValue().sum();
+            counter.getValue().add(difference);
+            drift += Math.abs(difference);
+        }
+        return drift;
+    }
+
+
+    public TestRequestStats getStats() {
+        TestRequestStats stats = new TestRequestStats();
+        requests.forEach((status, counter) -> stats.getRequests().put(status, counter.sum()));
+        results.forEach((result, counter) -> stats.getResults().put(result, counter.sum()));
+        suggestions.forEach((suggestion, counter) -> stats.getSuggestions().put(suggestion, counter.sum()));
+        stats.setReconciledOn(reconciledOn);
+        return stats;
+    }
+
+    private static <E extends Enum<E>> Map<E, LongAdder> createCounters(Class<E> type) {
+        Map<E, LongAdder> counters = new EnumMap<>(type);
+        for (E value : type.getEnumConstants())
+            counters.put(value, new LongAdder());
+        return counters;
+    }
+
+}
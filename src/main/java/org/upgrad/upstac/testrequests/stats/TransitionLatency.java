@@ -0,0 +1,16 @@
+package org.upgrad.upstac.testrequests.stats;
+
+import lombok.Data;
+
+@Data
+public class TransitionLatency {
+
+    private long count;
+    private long minMillis;
+    private long maxMillis;
+    private long meanMillis;
+    private long p50Millis;
+    private long p90Millis;
+    private long p95Millis;
+    private long p99Millis;
+}
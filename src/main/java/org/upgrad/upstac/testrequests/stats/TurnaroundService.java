@@ -0,0 +1,72 @@
+package org.upgrad.upstac.testrequests.stats;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.upgrad.upstac.testrequests.TestRequestStatusChangedEvent;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+//How long requests stay in each status, as latency histograms per status pair, overall and per pin code.
+//Recorded from every committed status change, so they cover the transitions since startup and never read the flow table.
+@Service
+public class TurnaroundService {
+
+    static final int OVERALL_SUB_BUCKET_BITS = 5;
+    static final int PIN_CODE_SUB_BUCKET_BITS = 3;
+
+    @Value("${turnaround.max-pin-codes:1000}")
+    private int maxPinCodes;
+
+    private final Map<String, LatencyHistogram> overall = new ConcurrentHashMap<>();
+    private final Map<Integer, Map<String, LatencyHistogram>> byPinCode = new ConcurrentHashMap<>();
+    private final LongAdder unmeasured = new LongAdder();
+    private final LocalDateTime since = LocalDateTime.now();
+
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(TestRequestStatusChangedEvent event) {
+
+        if (null == event.getFrom())
+            return;
+
+        if (null == event.getFromSince()) {
+            unmeasured.increment();
+            return;
+        }
+
+        String transition = event.getFrom() + "->" + event.getTo();
+        long millis = Duration.between(event.getFromSince(), event.getHappenedAt()).toMillis();
+
+        overall.computeIfAbsent(transition, key -> new LatencyHistogram(OVERALL_SUB_BUCKET_BITS)).record(millis);
+
+        Integer pinCode = event.getTestRequest().getPinCode();
+        if (null == pinCode)
+            return;
+
+        Map<String, LatencyHistogram> histograms = byPinCode.get(pinCode);
+        if (null == histograms && byPinCode.size() < maxPinCodes)
+            histograms = byPinCode.computeIfAbsent(pinCode, key -> new ConcurrentHashMap<>());
+        if (null != histograms)
+            histograms.computeIfAbsent(transition, key -> new LatencyHistogram(PIN_CODE_SUB_BUCKET_BITS)).record(millis);
+    }
+
+
+    public TurnaroundStats getStats(Integer pinCode) {
+        TurnaroundStats stats = new TurnaroundStats();
+        stats.setPinCode(pinCode);
+        stats.setUnmeasured(unmeasured.sum());
+        stats.setSince(since);
+
+        Map<String, LatencyHistogram> histograms = null == pinCode ? overall : byPinCode.get(pinCode);
+        if (null != histograms)
+            new TreeMap<>(histograms).forEach((transition, histogram) -> stats.getTransitions().put(transition, histogram.getLatency()));
+        return stats;
+    }
+
+}
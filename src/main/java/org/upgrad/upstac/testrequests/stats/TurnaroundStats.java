@@ -0,0 +1,22 @@
+package org.upgrad.upstac.testrequests.stats;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+public class TurnaroundStats {
+
+    //Null for all pin codes
+    private Integer pinCode;
+
+    //Time spent in the first status before moving to the second, keyed FROM->TO
+    private Map<String, TransitionLatency> transitions = new LinkedHashMap<>();
+
+    //Transitions of requests whose previous status change predates its time being kept
+    private long unmeasured;
+
+    private LocalDateTime since;
+}
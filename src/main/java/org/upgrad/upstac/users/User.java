@@ -4,6 +4,9 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.upgrad.upstac.shared.PersistentEntity;
 import org.upgrad.upstac.users.models.Gender;
 import org.upgrad.upstac.users.models.AccountStatus;
 import org.upgrad.upstac.users.roles.Role;
@@ -14,10 +17,19 @@ import java.time.LocalDateTime;
 import java.util.Set;
 
 @Entity
+//The directory filters by status in userName order; pending approvals are listed oldest first
+@Table(indexes = {
+        @Index(name = "idx_user_status", columnList = "status,userName"),
+        @Index(name = "idx_user_status_created", columnList = "status,created,userName"),
+        @Index(name = "idx_user_pin_code", columnList = "pinCode,userName"),
+        @Index(name = "idx_user_updated", columnList = "updated")
+})
+//Cached with its roles, so the users behind createdBy, tester and doctor are not re-read for every request listed
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 @Getter
 @Setter
 @ToString
-public class User {
+public class User extends PersistentEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -66,6 +78,8 @@ public class User {
 //    private Set<Role> roles;
 
     @ManyToMany(fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user-roles")
+    @ToString.Exclude
     private Set<Role> roles;
 
 
@@ -105,4 +119,9 @@ public class User {
             return 0;
     }
 
+    @Override
+    protected Object identity() {
+        return getId();
+    }
+
 }
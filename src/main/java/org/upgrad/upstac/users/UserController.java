@@ -4,19 +4,21 @@ package org.upgrad.upstac.users;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.upgrad.upstac.config.security.UserLoggedInService;
+import org.upgrad.upstac.exception.AppException;
 import org.upgrad.upstac.exception.ForbiddenException;
 import org.upgrad.upstac.users.credentials.ChangePasswordRequest;
 import org.upgrad.upstac.users.credentials.ChangePasswordService;
 import org.upgrad.upstac.users.models.AccountStatus;
 import org.upgrad.upstac.users.models.UpdateUserDetailRequest;
+import org.upgrad.upstac.users.roles.UserRole;
 
 import javax.validation.ConstraintViolationException;
-import java.util.List;
-
+import static org.upgrad.upstac.exception.UpgradResponseStatusException.asBadRequest;
 import static org.upgrad.upstac.exception.UpgradResponseStatusException.asConstraintViolation;
 import static org.upgrad.upstac.exception.UpgradResponseStatusException.asForbidden;
 
@@ -42,9 +44,32 @@ public class UserController {
 
     @PreAuthorize("hasRole('GOVERNMENT_AUTHORITY')")
     @GetMapping
-    public List<User> listUsers() {
+    public Slice<UserSummary> listUsers(@RequestParam(required = false) UserRole role,
+                                        @RequestParam(required = false) AccountStatus status,
+                                        @RequestParam(required = false) Integer pinCode,
+                                        @RequestParam(required = false) String name,
+                                        @RequestParam(defaultValue = "0") int page,
+                                        @RequestParam(defaultValue = "50") int size,
+                                        @RequestParam(defaultValue = "userName") String sortBy) {
+
+        try {
+            return userService.findSummaries(role, status, pinCode, name, page, size, sortBy);
+        } catch (AppException e) {
+            throw asBadRequest(e.getMessage());
+        }
+    }
 
-        return userService.findAll();
+    @PreAuthorize("hasRole('GOVERNMENT_AUTHORITY')")
+    @GetMapping(value = "/pendingapprovals")
+    public Slice<UserSummary> listPendingApprovals(@RequestParam(required = false) UserRole role,
+                                                   @RequestParam(defaultValue = "0") int page,
+                                                   @RequestParam(defaultValue = "50") int size) {
+
+        try {
+            return userService.findPendingApprovals(role, page, size);
+        } catch (AppException e) {
+            throw asBadRequest(e.getMessage());
+        }
     }
 
 
@@ -1,9 +1,16 @@
 package org.upgrad.upstac.users;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.upgrad.upstac.users.models.AccountStatus;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +24,38 @@ public interface UserRepository extends CrudRepository<User, Long> {
     List<User> findAll();
     List<User> findByStatus(AccountStatus status);
 
+    //Filters left null match everything; namePrefix is a LIKE pattern escaped with '!'
+    @Query("select new org.upgrad.upstac.users.UserSummary(u.id, u.userName, u.firstName, u.lastName, u.email, u.phoneNumber, u.gender, u.pinCode, u.status, u.created, r.name)" +
+            " from User u join u.roles r" +
+            " where (:role is null or r.name = :role) and (:status is null or u.status = :status)" +
+            " and (:pinCode is null or u.pinCode = :pinCode) and (:namePrefix is null or u.userName like :namePrefix escape '!')")
+    Slice<UserSummary> findSummaries(@Param("role") String role, @Param("status") AccountStatus status, @Param("pinCode") Integer pinCode,
+                                     @Param("namePrefix") String namePrefix, Pageable pageable);
+
+    @Query("select distinct u from User u join u.roles r where r.name = :role and u.status = :status")
+    List<User> findByRoleAndStatus(@Param("role") String role, @Param("status") AccountStatus status);
+
+    @Query("select u.id, u.userName from User u where u.id in :ids and u.status = :status")
+    List<Object[]> findIdAndUserNameByIdInAndStatus(@Param("ids") Collection<Long> ids, @Param("status") AccountStatus status);
+
+    @Query("select u.id, u.userName from User u join u.roles r" +
+            " where u.status = :status and (:role is null or r.name = :role) and (:pinCode is null or u.pinCode = :pinCode) order by u.userName")
+    List<Object[]> findIdAndUserNameByFilter(@Param("status") AccountStatus status, @Param("role") String role, @Param("pinCode") Integer pinCode, Pageable pageable);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update User u set u.status = :to, u.updated = :updated where u.id in :ids and u.status = :from")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("from") AccountStatus from, @Param("to") AccountStatus to, @Param("updated") LocalDateTime updated);
+
+    //Pages of the searchable fields, newest first from before
+    @Query("select u.id, u.firstName, u.lastName, u.phoneNumber, u.email, u.status, u.created from User u where u.id < :before order by u.id desc")
+    List<Object[]> findSearchFieldsBefore(@Param("before") Long before, Pageable pageable);
+
+    @Query("select u.id, u.firstName, u.lastName, u.phoneNumber, u.email, u.status, u.created from User u where u.userName in :userNames")
+    List<Object[]> findSearchFieldsByUserNameIn(@Param("userNames") Collection<String> userNames);
+
+    @Query("select u.id, u.firstName, u.lastName, u.phoneNumber, u.email, u.status, u.created from User u where u.updated >= :since")
+    List<Object[]> findSearchFieldsUpdatedSince(@Param("since") LocalDateTime since);
+
     void deleteById(Long id);
 
     Optional<User> findById(Long id);
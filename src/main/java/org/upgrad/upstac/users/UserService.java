@@ -5,9 +5,14 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 import org.upgrad.upstac.auth.register.RegisterRequest;
 import org.upgrad.upstac.exception.AppException;
@@ -40,6 +45,13 @@ public class UserService {
     @Autowired
     private BCryptPasswordEncoder bCryptPasswordEncoder;
 
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    public static final int MAX_PAGE_SIZE = 200;
+
+    static final Set<String> SORTABLE_PROPERTIES = new HashSet<>(Arrays.asList("userName", "firstName", "lastName", "pinCode", "status", "created"));
+
     private static final Logger log = LoggerFactory.getLogger(UserService.class);
 
 
@@ -51,10 +63,28 @@ public class UserService {
 
     }
 
-    public List<User> findPendingApprovals() {
+    @Transactional(readOnly = true)
+    public Slice<UserSummary> findPendingApprovals(UserRole role, int page, int size) {
+
+        return findSummaries(role, AccountStatus.INITIATED, null, null, page, size, "created");
+
+    }
+
+    //A page of the user directory; slices are returned so no page has to count all matching users
+    @Transactional(readOnly = true)
+    public Slice<UserSummary> findSummaries(UserRole role, AccountStatus status, Integer pinCode, String namePrefix, int page, int size, String sortBy) {
+
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE)
+            throw new AppException("Page size should be between 1 and " + MAX_PAGE_SIZE);
+
+        if (!SORTABLE_PROPERTIES.contains(sortBy))
+            throw new AppException("Cannot sort by " + sortBy + ", use one of " + SORTABLE_PROPERTIES);
 
-        return userRepository.findByStatus(AccountStatus.INITIATED);
+        //userName is unique, so pages stay stable when the sort column has ties
+        Sort sort = "userName".equals(sortBy) ? Sort.by(sortBy) : Sort.by(sortBy, "userName");
 
+        String pattern = isNotEmptyOrNull(namePrefix) ? namePrefix.replaceAll("[!%_]", "!$0") + "%" : null;
+        return userRepository.findSummaries(null == role ? null : role.name(), status, pinCode, pattern, PageRequest.of(page, size, sort));
     }
 
     public boolean isApprovedUser(String userName) {
@@ -78,6 +108,7 @@ public class UserService {
     }
 
 
+    @Transactional(readOnly = true)
     public List<User> findAll() {
         List<User> list = new ArrayList<>();
         userRepository.findAll().iterator().forEachRemaining(list::add);
@@ -159,7 +190,10 @@ public class UserService {
     @CachePut(value = "user")
     public User saveInDatabase(User newUser) {
         try{
-            return userRepository.save(newUser);
+            newUser.setUpdated(LocalDateTime.now());
+            User savedUser = userRepository.save(newUser);
+            applicationEventPublisher.publishEvent(new UserUpdatedEvent(savedUser.getUserName()));
+            return savedUser;
         }
         catch (DataIntegrityViolationException e) {
 
@@ -0,0 +1,26 @@
+package org.upgrad.upstac.users;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.upgrad.upstac.users.models.AccountStatus;
+import org.upgrad.upstac.users.models.Gender;
+
+import java.time.LocalDateTime;
+
+//A row of the user directory: the user's columns without the password, and the name of their role
+@Data
+@AllArgsConstructor
+public class UserSummary {
+
+    private Long id;
+    private String userName;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private String phoneNumber;
+    private Gender gender;
+    private Integer pinCode;
+    private AccountStatus status;
+    private LocalDateTime created;
+    private String role;
+}
@@ -0,0 +1,23 @@
+package org.upgrad.upstac.users;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+//Published when users' details are saved, for anything holding a copy of them
+@Getter
+public class UserUpdatedEvent {
+
+    private final Set<String> userNames;
+
+    public UserUpdatedEvent(String userName) {
+        this.userNames = Collections.singleton(userName);
+    }
+
+    public UserUpdatedEvent(Collection<String> userNames) {
+        this.userNames = new HashSet<>(userNames);
+    }
+}
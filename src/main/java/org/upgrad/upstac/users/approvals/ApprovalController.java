@@ -0,0 +1,39 @@
+package org.upgrad.upstac.users.approvals;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.upgrad.upstac.config.security.UserLoggedInService;
+import org.upgrad.upstac.exception.AppException;
+
+import javax.validation.ConstraintViolationException;
+
+import static org.upgrad.upstac.exception.UpgradResponseStatusException.asBadRequest;
+import static org.upgrad.upstac.exception.UpgradResponseStatusException.asConstraintViolation;
+
+
+@RestController
+@RequestMapping("/users/approvals")
+public class ApprovalController {
+
+
+    @Autowired
+    private BulkApprovalService bulkApprovalService;
+
+    @Autowired
+    private UserLoggedInService userLoggedInService;
+
+
+    @PutMapping
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public BulkApprovalResult updateStatus(@RequestBody BulkApprovalRequest bulkApprovalRequest) {
+        try {
+            return bulkApprovalService.updateStatus(bulkApprovalRequest, userLoggedInService.getLoggedInUser());
+        } catch (ConstraintViolationException e) {
+            throw asConstraintViolation(e);
+        } catch (AppException e) {
+            throw asBadRequest(e.getMessage());
+        }
+    }
+
+}
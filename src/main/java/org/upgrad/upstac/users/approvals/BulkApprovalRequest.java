@@ -0,0 +1,21 @@
+package org.upgrad.upstac.users.approvals;
+
+import lombok.Data;
+import org.upgrad.upstac.users.models.AccountStatus;
+import org.upgrad.upstac.users.roles.UserRole;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+//Either userIds, or a filter over pending accounts when userIds is empty
+@Data
+public class BulkApprovalRequest {
+
+    @NotNull
+    private AccountStatus status;
+
+    private List<Long> userIds;
+
+    private UserRole role;
+    private Integer pinCode;
+}
@@ -0,0 +1,19 @@
+package org.upgrad.upstac.users.approvals;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class BulkApprovalResult {
+
+    private final List<String> updated;
+
+    //Set when a filter matched more accounts than one batch takes; sending the request again continues with them
+    private final boolean more;
+
+    public BulkApprovalResult(List<String> updated, boolean more) {
+        this.updated = updated;
+        this.more = more;
+    }
+}
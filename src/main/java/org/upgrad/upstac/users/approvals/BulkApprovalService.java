@@ -0,0 +1,96 @@
+package org.upgrad.upstac.users.approvals;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.annotation.Validated;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.UserRepository;
+import org.upgrad.upstac.users.UserUpdatedEvent;
+import org.upgrad.upstac.users.models.AccountStatus;
+
+import javax.transaction.Transactional;
+import javax.validation.Valid;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+//Approves or rejects pending accounts in batches: one select of the accounts, one guarded set-based update,
+//one JDBC batch of audit rows and one event for every copy of the users held in memory
+@Service
+@Validated
+public class BulkApprovalService {
+
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    static final String INSERT_AUDIT = "insert into user_status_audit (user_id, user_name, from_status, to_status, changed_by, changed_at) values (?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    private static final Logger log = LoggerFactory.getLogger(BulkApprovalService.class);
+
+
+    //Accounts that are no longer pending are skipped; the result names the ones that changed
+    @Transactional
+    public BulkApprovalResult updateStatus(@Valid BulkApprovalRequest request, User authority) {
+
+        AccountStatus to = request.getStatus();
+        if (to != AccountStatus.APPROVED && to != AccountStatus.REJECTED)
+            throw new AppException("Pending accounts can only be APPROVED or REJECTED");
+
+        List<Object[]> rows;
+        boolean more = false;
+        if (null != request.getUserIds() && !request.getUserIds().isEmpty()) {
+            if (request.getUserIds().size() > MAX_BATCH_SIZE)
+                throw new AppException("A batch can have at most " + MAX_BATCH_SIZE + " users");
+            rows = userRepository.findIdAndUserNameByIdInAndStatus(request.getUserIds(), AccountStatus.INITIATED);
+        } else {
+            String role = null == request.getRole() ? null : request.getRole().name();
+            rows = new ArrayList<>(userRepository.findIdAndUserNameByFilter(AccountStatus.INITIATED, role, request.getPinCode(), PageRequest.of(0, MAX_BATCH_SIZE + 1)));
+            if (rows.size() > MAX_BATCH_SIZE) {
+                rows.remove(MAX_BATCH_SIZE);
+                more = true;
+            }
+        }
+
+        if (rows.isEmpty())
+            return new BulkApprovalResult(new ArrayList<>(), more);
+
+        List<Long> ids = rows.stream().map(row -> (Long) row[0]).collect(Collectors.toList());
+        List<String> userNames = rows.stream().map(row -> (String) row[1]).collect(Collectors.toList());
+
+        LocalDateTime now = LocalDateTime.now();
+        int updated = userRepository.updateStatus(ids, AccountStatus.INITIATED, to, now);
+        if (updated != ids.size())
+            throw new AppException("Accounts changed while being updated, please retry");
+
+        Timestamp changedAt = Timestamp.valueOf(now);
+        jdbcTemplate.batchUpdate(INSERT_AUDIT, rows, rows.size(), (statement, row) -> {
+            statement.setLong(1, (Long) row[0]);
+            statement.setString(2, (String) row[1]);
+            statement.setInt(3, AccountStatus.INITIATED.ordinal());
+            statement.setInt(4, to.ordinal());
+            statement.setString(5, authority.getUserName());
+            statement.setTimestamp(6, changedAt);
+        });
+
+        applicationEventPublisher.publishEvent(new UserUpdatedEvent(userNames));
+        log.info(updated + " account(s) " + to + " by " + authority.getUserName());
+        return new BulkApprovalResult(userNames, more);
+    }
+
+}
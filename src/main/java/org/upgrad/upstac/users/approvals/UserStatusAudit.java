@@ -0,0 +1,38 @@
+package org.upgrad.upstac.users.approvals;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.upgrad.upstac.shared.PersistentEntity;
+import org.upgrad.upstac.users.models.AccountStatus;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+//One account status change made by an authority. Rows are written by BulkApprovalService with a JDBC batch,
+//as identity ids would make Hibernate insert them one statement at a time.
+@Getter
+@Setter
+@ToString
+@Entity
+@Table(indexes = @Index(name = "idx_user_status_audit_user", columnList = "userId,changedAt"))
+public class UserStatusAudit extends PersistentEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long userId;
+    private String userName;
+
+    private AccountStatus fromStatus;
+    private AccountStatus toStatus;
+
+    private String changedBy;
+    private LocalDateTime changedAt;
+
+    @Override
+    protected Object identity() {
+        return getId();
+    }
+}
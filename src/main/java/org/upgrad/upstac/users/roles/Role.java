@@ -1,11 +1,15 @@
 package org.upgrad.upstac.users.roles;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.upgrad.upstac.shared.PersistentEntity;
 
 import javax.persistence.*;
 
 @Entity
-public class Role {
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "roles")
+public class Role extends PersistentEntity {
 
     @Id
     @GeneratedValue(strategy= GenerationType.IDENTITY)
@@ -44,4 +48,10 @@ public class Role {
     public void setDescription(String description) {
         this.description = description;
     }
+
+    @Override
+    protected Object identity() {
+        return getId();
+    }
+
 }
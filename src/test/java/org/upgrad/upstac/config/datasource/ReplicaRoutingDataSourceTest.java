@@ -0,0 +1,143 @@
+package org.upgrad.upstac.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+//Routes between two in-memory H2 databases, told apart by the database name each connection reports
+class ReplicaRoutingDataSourceTest {
+
+    ReplicaRoutingDataSource replicaRoutingDataSource;
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate readWrite;
+    TransactionTemplate readOnly;
+    String userName;
+
+
+    @BeforeEach
+    void setUp() {
+        HikariDataSource primary = pool("primary", "routingprimary");
+        new JdbcTemplate(primary).execute("create table if not exists note (id int)");
+        replicaRoutingDataSource = new ReplicaRoutingDataSource(primary,
+                Arrays.asList(pool("replica-1", "routingreplica")), 60000, () -> userName);
+        replicaRoutingDataSource.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        replicaRoutingDataSource.close();
+    }
+
+    private HikariDataSource pool(String poolName, String database) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(poolName);
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+
+    private String databaseIn(TransactionTemplate transactionTemplate) {
+        return transactionTemplate.execute(status -> jdbcTemplate.queryForObject("select database()", String.class));
+    }
+
+
+    @Test
+    public void read_only_transactions_should_go_to_the_replica_and_others_to_the_primary() {
+
+        //Arrange
+        userName = "tester";
+
+        //Act
+        String readOnlyDatabase = databaseIn(readOnly);
+        String readWriteDatabase = databaseIn(readWrite);
+        String outsideTransaction = jdbcTemplate.queryForObject("select database()", String.class);
+
+        //Assert
+        assertThat(readOnlyDatabase, equalTo("ROUTINGREPLICA"));
+        assertThat(readWriteDatabase, equalTo("ROUTINGPRIMARY"));
+        assertThat(outsideTransaction, equalTo("ROUTINGPRIMARY"));
+    }
+
+    @Test
+    public void a_user_should_read_from_the_primary_right_after_their_own_write() {
+
+        //Arrange
+        userName = "tester";
+        readWrite.execute(status -> jdbcTemplate.update("insert into note (id) values (?)", 1));
+
+        //Act
+        String ownRead = databaseIn(readOnly);
+        userName = "doctor";
+        String otherRead = databaseIn(readOnly);
+
+        //Assert
+        assertThat(ownRead, equalTo("ROUTINGPRIMARY"));
+        assertThat(otherRead, equalTo("ROUTINGREPLICA"));
+
+        List<DataSourceTargetStatus> status = replicaRoutingDataSource.getStatus();
+        assertThat(status.stream().map(DataSourceTargetStatus::getName).toArray(), equalTo(new Object[]{"primary", "replica-1"}));
+        assertThat(status.get(1).getConnectionsRouted(), equalTo(1L));
+        assertThat(status.get(1).getTotalConnections(), greaterThan(0));
+    }
+
+    @Test
+    public void a_read_write_transaction_that_writes_nothing_should_not_make_the_user_sticky() {
+
+        //Arrange
+        userName = "tester";
+        databaseIn(readWrite);
+
+        //Act
+        String ownRead = databaseIn(readOnly);
+
+        //Assert
+        assertThat(ownRead, equalTo("ROUTINGREPLICA"));
+    }
+
+    @Test
+    public void a_write_through_a_plain_statement_should_make_the_user_sticky() {
+
+        //Arrange
+        userName = "tester";
+        readWrite.execute(status -> jdbcTemplate.update("delete from note"));
+
+        //Act
+        String ownRead = databaseIn(readOnly);
+
+        //Assert
+        assertThat(ownRead, equalTo("ROUTINGPRIMARY"));
+    }
+
+    @Test
+    public void a_read_only_transaction_hinted_to_the_primary_should_go_there() {
+
+        //Arrange
+        userName = "tester";
+
+        //Act
+        String hintedRead = ReplicaRoutingDataSource.onPrimary(() -> databaseIn(readOnly));
+        String laterRead = databaseIn(readOnly);
+
+        //Assert
+        assertThat(hintedRead, equalTo("ROUTINGPRIMARY"));
+        assertThat(laterRead, equalTo("ROUTINGREPLICA"));
+    }
+
+}
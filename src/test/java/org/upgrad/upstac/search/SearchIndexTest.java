@@ -0,0 +1,138 @@
+package org.upgrad.upstac.search;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Slice;
+import org.upgrad.upstac.exception.AppException;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SearchIndexTest {
+
+    SearchIndex searchIndex = new SearchIndex(1024 * 1024);
+
+    @Test
+    public void when_searching_part_of_a_name_phone_or_email_expect_the_matching_documents() {
+
+        //Arrange
+        searchIndex.put(SearchIndex.Type.TEST_REQUEST, 1L, "Ravi Kumar", "+91 98450 12345", "ravi@example.com");
+        searchIndex.put(SearchIndex.Type.TEST_REQUEST, 2L, "Kumari Devi", "9000012399", "devi@example.com");
+        searchIndex.put(SearchIndex.Type.USER, 3L, "Anil Rao", "9845099999", "anil@upgrad.com");
+
+        //Act & Assert
+        assertThat(ids(searchIndex.search("KUMAR", null, 0, 10)), contains(1L, 2L));
+        assertThat(ids(searchIndex.search("12345", null, 0, 10)), contains(1L));
+        assertThat(ids(searchIndex.search("98450-12345", null, 0, 10)), contains(1L));
+        assertThat(ids(searchIndex.search("example.com", SearchIndex.Type.TEST_REQUEST, 0, 10)), contains(1L, 2L));
+        assertThat(ids(searchIndex.search("upgrad", SearchIndex.Type.TEST_REQUEST, 0, 10)), empty());
+    }
+
+    @Test
+    public void when_a_document_is_replaced_or_removed_expect_only_its_current_fields_to_match() {
+
+        //Arrange
+        searchIndex.put(SearchIndex.Type.USER, 1L, "Old Name", "9000000001", "old@example.com");
+        searchIndex.put(SearchIndex.Type.USER, 1L, "New Name", "9000000001", "new@example.com");
+        searchIndex.put(SearchIndex.Type.USER, 2L, "Gone User", "9000000002", "gone@example.com");
+
+        //Act
+        searchIndex.remove(SearchIndex.Type.USER, 2L);
+
+        //Assert
+        assertThat(ids(searchIndex.search("old", null, 0, 10)), empty());
+        assertThat(ids(searchIndex.search("new name", null, 0, 10)), contains(1L));
+        assertThat(ids(searchIndex.search("gone", null, 0, 10)), empty());
+        assertThat(searchIndex.getStatus().getDocuments(), equalTo(1));
+    }
+
+    @Test
+    public void when_matches_span_pages_expect_each_page_and_whether_more_follow() {
+
+        //Arrange
+        for (long id = 1; id <= 5; id++)
+            searchIndex.put(SearchIndex.Type.TEST_REQUEST, id, "Patient " + id, null, null);
+
+        //Act
+        Slice<SearchHit> first = searchIndex.search("patient", null, 0, 2);
+        Slice<SearchHit> last = searchIndex.search("patient", null, 2, 2);
+
+        //Assert
+        assertThat(ids(first), contains(1L, 2L));
+        assertThat(first.hasNext(), equalTo(true));
+        assertThat(ids(last), contains(5L));
+        assertThat(last.hasNext(), equalTo(false));
+    }
+
+    @Test
+    public void when_the_budget_is_reached_expect_the_oldest_documents_evicted_for_new_ones() {
+
+        //Arrange
+        SearchIndex small = new SearchIndex(16384);
+        small.putIfAbsent(SearchIndex.Type.TEST_REQUEST, 2L, "Loaded newest", null, null);
+        small.putIfAbsent(SearchIndex.Type.TEST_REQUEST, 1L, "Loaded oldest", null, null);
+
+        //Act
+        boolean allAdded = true;
+        for (long id = 3; id <= 100; id++)
+            allAdded &= small.put(SearchIndex.Type.TEST_REQUEST, id, "Patient number " + id, "98450" + id, "patient" + id + "@example.com");
+
+        //Assert
+        assertThat(allAdded, equalTo(true));
+        assertThat(ids(small.search("patient number 100", null, 0, 10)), contains(100L));
+        assertThat(ids(small.search("loaded", null, 0, 10)), empty());
+        assertThat(ids(small.search("patient number 3", null, 0, 10)), empty());
+        assertThat(small.getStatus().isComplete(), equalTo(false));
+        assertThat(small.getStatus().getEstimatedBytes(), lessThanOrEqualTo(16384L));
+    }
+
+    @Test
+    public void when_the_budget_is_reached_while_loading_expect_the_older_documents_left_out() {
+
+        //Arrange
+        SearchIndex small = new SearchIndex(16384);
+
+        //Act
+        int added = 0;
+        for (long id = 100; id >= 1; id--)
+            if (small.putIfAbsent(SearchIndex.Type.TEST_REQUEST, id, "Patient number " + id, "98450" + id, "patient" + id + "@example.com"))
+                added++;
+
+        //Assert
+        assertThat(added, lessThan(100));
+        assertThat(ids(small.search("patient number 100", null, 0, 10)), contains(100L));
+        assertThat(small.getStatus().isComplete(), equalTo(false));
+    }
+
+    @Test
+    public void when_documents_are_removed_expect_their_postings_out_of_the_estimate() {
+
+        //Arrange
+        searchIndex.put(SearchIndex.Type.USER, 1L, "Kept User", "9000000001", "kept@example.com");
+        long withOne = searchIndex.getStatus().getEstimatedBytes();
+
+        //Act
+        for (long id = 2; id <= 50; id++) {
+            searchIndex.put(SearchIndex.Type.USER, id, "Kept User", "9000000001", "kept@example.com");
+            searchIndex.remove(SearchIndex.Type.USER, id);
+        }
+
+        //Assert
+        assertThat(searchIndex.getStatus().getEstimatedBytes(), equalTo(withOne));
+    }
+
+    @Test
+    public void when_query_is_shorter_than_a_trigram_expect_error() {
+
+        //Act & Assert
+        assertThrows(AppException.class, () -> searchIndex.search("ab", null, 0, 10));
+    }
+
+    private static List<Long> ids(Slice<SearchHit> hits) {
+        return hits.getContent().stream().map(SearchHit::getId).collect(Collectors.toList());
+    }
+
+}
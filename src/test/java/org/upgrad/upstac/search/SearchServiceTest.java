@@ -0,0 +1,90 @@
+package org.upgrad.upstac.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.upgrad.upstac.testrequests.TestRequestRepository;
+import org.upgrad.upstac.users.UserRepository;
+import org.upgrad.upstac.users.models.AccountStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class SearchServiceTest {
+
+    @Mock
+    TestRequestRepository testRequestRepository;
+
+    @Mock
+    UserRepository userRepository;
+
+    @InjectMocks
+    SearchService searchService;
+
+    @Test
+    public void when_the_budget_runs_out_while_loading_expect_the_oldest_of_either_type_left_out() {
+
+        //Arrange
+        Object[] newRequest = {12L, "Ravi Kumar", "9845012345", "ravi@example.com", LocalDate.now()};
+        Object[] oldRequest = {11L, "Kumari Devi", "9000012399", "devi@example.com", LocalDate.now().minusDays(30)};
+        Object[] user = {3L, "Kumar", "Tester", "9845099999", "kumar@upgrad.com", AccountStatus.APPROVED, LocalDateTime.now().minusDays(1)};
+
+        SearchIndex room = new SearchIndex(Long.MAX_VALUE);
+        room.putIfAbsent(SearchIndex.Type.TEST_REQUEST, 12L, "Ravi Kumar", "9845012345", "ravi@example.com");
+        room.putIfAbsent(SearchIndex.Type.USER, 3L, "Kumar Tester", "9845099999", "kumar@upgrad.com");
+        ReflectionTestUtils.setField(searchService, "maxBytes", room.getStatus().getEstimatedBytes());
+        searchService.createIndex();
+
+        Mockito.when(testRequestRepository.findSearchFieldsBefore(eq(Long.MAX_VALUE), any())).thenReturn(Arrays.asList(newRequest, oldRequest));
+        Mockito.when(userRepository.findSearchFieldsBefore(eq(Long.MAX_VALUE), any())).thenReturn(Collections.singletonList(user));
+
+        //Act
+        searchService.load();
+
+        //Assert
+        assertThat(ids(searchService.search("kumar", null, 0, 10)), contains(12L, 3L));
+    }
+
+    @Test
+    public void when_another_node_creates_a_request_expect_it_found_after_catching_up_and_read_again_once() {
+
+        //Arrange
+        ReflectionTestUtils.setField(searchService, "maxBytes", 1024 * 1024L);
+        searchService.createIndex();
+        searchService.load();
+        Object[] request = {5L, "Ravi Kumar", "9845012345", "ravi@example.com", LocalDate.now()};
+        Mockito.when(testRequestRepository.findSearchFieldsAfter(eq(0L), any()))
+                .thenReturn(Collections.singletonList(request));
+
+        //Act
+        searchService.catchUp();
+        searchService.catchUp();
+        searchService.catchUp();
+
+        //Assert
+        assertThat(ids(searchService.search("kumar", null, 0, 10)), contains(5L));
+        Mockito.verify(testRequestRepository, Mockito.times(2)).findSearchFieldsAfter(eq(0L), any());
+        Mockito.verify(testRequestRepository, Mockito.times(3)).findSearchFieldsAfter(eq(5L), any());
+    }
+
+
+    private List<Long> ids(Slice<SearchHit> hits) {
+        return hits.getContent().stream().map(SearchHit::getId).collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,71 @@
+package org.upgrad.upstac.testrequests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.upgrad.upstac.users.UserUpdatedEvent;
+import org.upgrad.upstac.users.roles.UserRole;
+
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+class CompletedTestRequestCacheTest {
+
+    CompletedTestRequestCache completedTestRequestCache = new CompletedTestRequestCache();
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(completedTestRequestCache, "maxBytes", 10L * CompletedTestRequestCache.SEGMENTS);
+        completedTestRequestCache.createSegments();
+    }
+
+    @Test
+    public void when_a_segment_is_over_its_share_expect_only_its_least_recently_used_entry_dropped() {
+
+        //Arrange
+        //1, 17 and 33 share a segment of 10 bytes, 2 is in another
+        put(1L, "user");
+        put(17L, "user");
+        put(2L, "user");
+        completedTestRequestCache.get(1L);
+
+        //Act
+        put(33L, "user");
+
+        //Assert
+        assertThat(completedTestRequestCache.get(1L), notNullValue());
+        assertThat(completedTestRequestCache.get(17L), nullValue());
+        assertThat(completedTestRequestCache.get(33L), notNullValue());
+        assertThat(completedTestRequestCache.get(2L), notNullValue());
+        assertThat(completedTestRequestCache.size(), equalTo(3));
+    }
+
+    @Test
+    public void when_a_user_is_saved_expect_their_entries_dropped_and_older_json_refused() {
+
+        //Arrange
+        put(1L, "user");
+        put(2L, "user");
+        put(3L, "otheruser");
+
+        //Act
+        completedTestRequestCache.onUserUpdated(new UserUpdatedEvent("user"));
+        completedTestRequestCache.put(4L, new byte[4], Collections.singletonMap(UserRole.USER, "otheruser"), 0);
+
+        //Assert
+        assertThat(completedTestRequestCache.get(1L), nullValue());
+        assertThat(completedTestRequestCache.get(2L), nullValue());
+        assertThat(completedTestRequestCache.get(3L, "otheruser", UserRole.USER), notNullValue());
+        assertThat(completedTestRequestCache.get(4L), nullValue());
+    }
+
+
+    private void put(Long id, String userName) {
+        completedTestRequestCache.put(id, new byte[4], Collections.singletonMap(UserRole.USER, userName), 0);
+    }
+
+}
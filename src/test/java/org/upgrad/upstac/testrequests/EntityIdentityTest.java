@@ -0,0 +1,95 @@
+package org.upgrad.upstac.testrequests;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.upgrad.upstac.testrequests.consultation.Consultation;
+import org.upgrad.upstac.testrequests.flow.TestRequestFlow;
+import org.upgrad.upstac.testrequests.lab.LabResult;
+import org.upgrad.upstac.users.User;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class EntityIdentityTest {
+
+    @Mock
+    User user;
+
+    @Mock
+    LabResult labResult;
+
+    @Mock
+    Consultation consultation;
+
+    @Mock
+    TestRequest request;
+
+    @Test
+    public void equals_hashCode_and_toString_should_not_touch_associations() {
+
+        //Arrange
+        TestRequest testRequest = new TestRequest();
+        testRequest.setRequestId(1L);
+        testRequest.setCreatedBy(user);
+        testRequest.setLabResult(labResult);
+        testRequest.setConsultation(consultation);
+
+        LabResult ownLabResult = new LabResult();
+        ownLabResult.setRequest(request);
+        ownLabResult.setTester(user);
+
+        Consultation ownConsultation = new Consultation();
+        ownConsultation.setRequest(request);
+        ownConsultation.setDoctor(user);
+
+        TestRequestFlow testRequestFlow = new TestRequestFlow();
+        testRequestFlow.setRequest(request);
+        testRequestFlow.setChangedBy(user);
+
+        //Act
+        for (Object entity : new Object[]{testRequest, ownLabResult, ownConsultation, testRequestFlow}) {
+            entity.toString();
+            entity.hashCode();
+            entity.equals(new Object());
+        }
+
+        //Assert
+        verifyNoInteractions(user, labResult, consultation, request);
+    }
+
+    @Test
+    public void entities_should_be_equal_only_when_persisted_with_the_same_id() {
+
+        //Arrange
+        TestRequest unsaved = new TestRequest();
+        TestRequest otherUnsaved = new TestRequest();
+        TestRequest saved = new TestRequest();
+        saved.setRequestId(7L);
+        TestRequest sameRow = new TestRequest();
+        sameRow.setRequestId(7L);
+        sameRow.setName("changed");
+        LabResult otherTypeWithSameId = new LabResult();
+        otherTypeWithSameId.setResultId(7L);
+
+        //Act
+        Set<TestRequest> testRequests = new HashSet<>();
+        testRequests.add(unsaved);
+        testRequests.add(otherUnsaved);
+        testRequests.add(saved);
+        testRequests.add(sameRow);
+
+        //Assert
+        assertThat(unsaved, not(equalTo(otherUnsaved)));
+        assertThat(saved, equalTo(sameRow));
+        assertThat(saved, not(equalTo(otherTypeWithSameId)));
+        assertThat(testRequests, hasSize(3));
+    }
+
+}
@@ -0,0 +1,118 @@
+package org.upgrad.upstac.testrequests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.upgrad.upstac.config.security.UserLoggedInService;
+import org.upgrad.upstac.testrequests.lab.LabRequestController;
+import org.upgrad.upstac.testrequests.lab.TesterCoverageService;
+import org.upgrad.upstac.users.User;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//The tester queue answered through MockMvc, with the version counters behind its ETag kept in a shared table
+@ExtendWith(MockitoExtension.class)
+class QueueETagTest {
+
+    @Mock
+    TestRequestQueryService testRequestQueryService;
+
+    @Mock
+    TesterCoverageService testerCoverageService;
+
+    @Mock
+    UserLoggedInService userLoggedInService;
+
+    @Mock
+    TestRequestVersionRepository testRequestVersionRepository;
+
+    @InjectMocks
+    LabRequestController labRequestController;
+
+    //The table every node reads and writes
+    Map<Integer, Long> versions = new HashMap<>();
+
+    MockMvc mockMvc;
+
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(labRequestController, "testRequestVersionService", versionServiceOnANode());
+        mockMvc = MockMvcBuilders.standaloneSetup(labRequestController).build();
+        Mockito.when(userLoggedInService.getLoggedInUserName()).thenReturn("tester");
+        Mockito.when(testerCoverageService.getPinCodesFor("tester")).thenReturn(Collections.emptySet());
+
+        Mockito.lenient().when(testRequestVersionRepository.sumVersions(anyCollection())).thenAnswer(invocation -> {
+            Collection<Integer> buckets = invocation.getArgument(0);
+            return buckets.stream().mapToLong(bucket -> versions.getOrDefault(bucket, 0L)).sum();
+        });
+        Mockito.lenient().when(testRequestVersionRepository.bump(anyCollection())).thenAnswer(invocation -> {
+            Collection<Integer> buckets = invocation.getArgument(0);
+            buckets.forEach(bucket -> versions.merge(bucket, 1L, Long::sum));
+            return buckets.size();
+        });
+    }
+
+    @Test
+    public void when_the_queue_is_polled_again_with_its_etag_expect_304_without_reading_it() throws Exception {
+
+        //Arrange
+        Mockito.when(testRequestQueryService.findBy(RequestStatus.INITIATED)).thenReturn(Collections.emptyList());
+        String eTag = mockMvc.perform(get("/api/labrequests/to-be-tested"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        //Act & Assert
+        for (int i = 0; i < 2; i++)
+            mockMvc.perform(get("/api/labrequests/to-be-tested").header("If-None-Match", eTag))
+                    .andExpect(status().isNotModified());
+        Mockito.verify(testRequestQueryService, Mockito.times(1)).findBy(RequestStatus.INITIATED);
+    }
+
+    @Test
+    public void when_a_request_enters_the_queue_through_another_node_expect_a_new_etag() throws Exception {
+
+        //Arrange
+        Mockito.when(testRequestQueryService.findBy(RequestStatus.INITIATED)).thenReturn(Collections.emptyList());
+        String eTag = mockMvc.perform(get("/api/labrequests/to-be-tested"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        //Act
+        TestRequest testRequest = new TestRequest();
+        testRequest.setPinCode(716768);
+        versionServiceOnANode().bump(Collections.singletonList(new TestRequestStatusChangedEvent(testRequest, null, RequestStatus.INITIATED, new User(), null, Instant.now())));
+        String eTagAfter = mockMvc.perform(get("/api/labrequests/to-be-tested").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        //Assert
+        assertThat(eTagAfter.equals(eTag), equalTo(false));
+        mockMvc.perform(get("/api/labrequests/to-be-tested").header("If-None-Match", eTagAfter))
+                .andExpect(status().isNotModified());
+    }
+
+
+    private TestRequestVersionService versionServiceOnANode() {
+        TestRequestVersionService testRequestVersionService = new TestRequestVersionService();
+        ReflectionTestUtils.setField(testRequestVersionService, "testRequestVersionRepository", testRequestVersionRepository);
+        return testRequestVersionService;
+    }
+
+}
@@ -0,0 +1,100 @@
+package org.upgrad.upstac.testrequests;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.upgrad.upstac.testrequests.consultation.CreateConsultationRequest;
+import org.upgrad.upstac.testrequests.consultation.DoctorSuggestion;
+import org.upgrad.upstac.testrequests.lab.CreateLabResult;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.UserService;
+import org.upgrad.upstac.users.models.Gender;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Runs the request pipeline against an embedded database seeded with the demo users.
+//Every subclass has the same configuration, so they all share one application context.
+//Background work is off, so the statistics only count what a test does; tests run the jobs they need directly.
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "file.upload-dir=target/useruploads",
+        "scheduling.enabled=false",
+        "search.load-on-startup=false",
+        "lab.vitals-backfill-on-startup=false"
+})
+@AutoConfigureTestDatabase
+public abstract class TestRequestPipelineTest {
+
+    //Requests are unique per phone number across the shared database
+    static final AtomicLong phoneNumbers = new AtomicLong(8800000000L);
+
+    @Autowired
+    protected TestRequestService testRequestService;
+
+    @Autowired
+    protected TestRequestUpdateService testRequestUpdateService;
+
+    @Autowired
+    protected TestRequestQueryService testRequestQueryService;
+
+    @Autowired
+    protected UserService userService;
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    protected EntityManagerFactory entityManagerFactory;
+
+    protected Statistics statistics;
+
+    @BeforeEach
+    public void setUpStatistics() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    protected Long createTestRequestIn(User user, Integer pinCode) {
+        CreateTestRequest createTestRequest = createTestRequest();
+        createTestRequest.setPinCode(pinCode);
+        return testRequestService.createTestRequestFrom(user, createTestRequest).getRequestId();
+    }
+
+    protected CreateTestRequest createTestRequest() {
+        String phoneNumber = String.valueOf(phoneNumbers.incrementAndGet());
+        CreateTestRequest createTestRequest = new CreateTestRequest();
+        createTestRequest.setAddress("some Addres");
+        createTestRequest.setAge(45);
+        createTestRequest.setEmail("someone" + phoneNumber + "@somedomain.com");
+        createTestRequest.setGender(Gender.FEMALE);
+        createTestRequest.setName("someuser");
+        createTestRequest.setPhoneNumber(phoneNumber);
+        createTestRequest.setPinCode(560003);
+        return createTestRequest;
+    }
+
+    protected CreateLabResult createLabResult() {
+        CreateLabResult createLabResult = new CreateLabResult();
+        createLabResult.setResult(TestStatus.POSITIVE);
+        createLabResult.setComments("Take Rest");
+        createLabResult.setBloodPressure("120");
+        createLabResult.setHeartBeat("91");
+        createLabResult.setTemperature("100");
+        createLabResult.setOxygenLevel("92");
+        return createLabResult;
+    }
+
+    protected CreateConsultationRequest createConsultationRequest() {
+        CreateConsultationRequest createConsultationRequest = new CreateConsultationRequest();
+        createConsultationRequest.setSuggestion(DoctorSuggestion.HOME_QUARANTINE);
+        createConsultationRequest.setComments("HOME QUARANTINE");
+        return createConsultationRequest;
+    }
+}
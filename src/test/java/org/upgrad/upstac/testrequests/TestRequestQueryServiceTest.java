@@ -0,0 +1,35 @@
+package org.upgrad.upstac.testrequests;
+
+import org.junit.jupiter.api.Test;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.roles.UserRole;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class TestRequestQueryServiceTest extends TestRequestPipelineTest {
+
+    @Test
+    public void lookup_by_id_should_take_one_query_and_only_find_requests_the_user_may_see() {
+
+        //Arrange
+        User user = userService.findByUserName("user");
+        User tester = userService.findByUserName("tester");
+        Long id = testRequestService.createTestRequestFrom(user, createTestRequest()).getRequestId();
+        testRequestUpdateService.assignForLabTest(id, tester);
+        statistics.clear();
+
+        //Act
+        boolean seenByTester = testRequestQueryService.findTestRequestFor("tester", UserRole.TESTER, id).map(TestRequest::getLabResult).isPresent();
+        long queries = statistics.getQueryExecutionCount();
+        boolean seenByUser = testRequestQueryService.findTestRequestFor("user", UserRole.USER, id).isPresent();
+        boolean seenByOtherUser = testRequestQueryService.findTestRequestFor("tester", UserRole.USER, id).isPresent();
+        boolean seenByDoctor = testRequestQueryService.findTestRequestFor("doctor", UserRole.DOCTOR, id).isPresent();
+        boolean seenByAuthority = testRequestQueryService.findTestRequestFor("authority", UserRole.GOVERNMENT_AUTHORITY, id).isPresent();
+
+        //Assert
+        assertThat(queries, equalTo(1L));
+        assertThat(seenByUser && seenByTester && seenByAuthority, equalTo(true));
+        assertThat(seenByOtherUser || seenByDoctor, equalTo(false));
+    }
+}
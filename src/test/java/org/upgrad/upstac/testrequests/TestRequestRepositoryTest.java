@@ -0,0 +1,211 @@
+package org.upgrad.upstac.testrequests;
+
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.upgrad.upstac.config.cache.SecondLevelCacheConfig;
+import org.upgrad.upstac.testrequests.consultation.Consultation;
+import org.upgrad.upstac.testrequests.lab.LabResult;
+import org.upgrad.upstac.users.User;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+//The slice leaves out application configuration, but Hibernate still needs the second-level cache manager
+@Import(SecondLevelCacheConfig.class)
+class TestRequestRepositoryTest {
+
+    @Autowired
+    TestRequestRepository testRequestRepository;
+
+    @Autowired
+    TestEntityManager testEntityManager;
+
+    Statistics statistics;
+
+    List<Long> ids = new ArrayList<>();
+
+    List<Long> initiatedIds = new ArrayList<>();
+
+    User tester;
+
+    User doctor;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = testEntityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        tester = new User();
+        tester.setUserName("tester");
+        testEntityManager.persist(tester);
+        doctor = new User();
+        doctor.setUserName("doctor");
+        testEntityManager.persist(doctor);
+
+        for (int i = 0; i < 10; i++) {
+            TestRequest testRequest = new TestRequest();
+            testRequest.setName("someuser");
+            testRequest.setStatus(RequestStatus.DIAGNOSIS_IN_PROCESS);
+            testEntityManager.persist(testRequest);
+
+            LabResult labResult = new LabResult();
+            labResult.setRequest(testRequest);
+            labResult.setComments("lab result of " + testRequest.getRequestId());
+            labResult.setTester(tester);
+            testEntityManager.persist(labResult);
+
+            Consultation consultation = new Consultation();
+            consultation.setRequest(testRequest);
+            consultation.setComments("consultation of " + testRequest.getRequestId());
+            consultation.setDoctor(doctor);
+            testEntityManager.persist(consultation);
+
+            ids.add(testRequest.getRequestId());
+        }
+
+        //Queues before the lab test is done, whose rows have no consultation and maybe no lab result
+        for (int i = 0; i < 5; i++) {
+            TestRequest testRequest = new TestRequest();
+            testRequest.setName("someuser");
+            testEntityManager.persist(testRequest);
+            initiatedIds.add(testRequest.getRequestId());
+        }
+        for (int i = 0; i < 5; i++) {
+            TestRequest testRequest = new TestRequest();
+            testRequest.setName("someuser");
+            testRequest.setStatus(RequestStatus.LAB_TEST_IN_PROGRESS);
+            testEntityManager.persist(testRequest);
+
+            LabResult labResult = new LabResult();
+            labResult.setRequest(testRequest);
+            labResult.setTester(tester);
+            testEntityManager.persist(labResult);
+        }
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        //The users behind tester and doctor come from the second-level cache once warm, which the rolled back
+        //transaction of this slice never fills
+        tester = testEntityManager.find(User.class, tester.getId());
+        doctor = testEntityManager.find(User.class, doctor.getId());
+        statistics.clear();
+    }
+
+    @Test
+    public void loading_a_page_of_requests_should_not_load_their_lab_results_or_consultations() {
+
+        //Act
+        List<TestRequest> testRequests = testRequestRepository.findAllById(ids);
+
+        //Assert
+        assertThat(testRequests.size(), equalTo(10));
+        assertThat(statistics.getPrepareStatementCount(), equalTo(1L));
+        assertThat(Hibernate.isPropertyInitialized(testRequests.get(0), "labResult"), equalTo(false));
+        assertThat(Hibernate.isPropertyInitialized(testRequests.get(0), "consultation"), equalTo(false));
+
+        assertThat(testRequests.get(0).getLabResult(), notNullValue());
+        assertThat(statistics.getPrepareStatementCount(), equalTo(2L));
+    }
+
+    @Test
+    public void a_queue_should_read_lab_results_and_consultations_in_the_same_query() {
+
+        //Act
+        List<TestRequest> testRequests = testRequestRepository.findByStatus(RequestStatus.DIAGNOSIS_IN_PROCESS);
+        testRequests.forEach(testRequest -> {
+            assertThat(testRequest.getLabResult().getComments(), equalTo("lab result of " + testRequest.getRequestId()));
+            assertThat(testRequest.getConsultation().getComments(), equalTo("consultation of " + testRequest.getRequestId()));
+        });
+
+        //Assert
+        assertThat(testRequests.size(), equalTo(10));
+        assertThat(statistics.getPrepareStatementCount(), equalTo(1L));
+    }
+
+    @Test
+    public void a_queue_of_requests_without_lab_results_should_not_query_for_them_again() {
+
+        //Act
+        List<TestRequest> testRequests = testRequestRepository.findByStatus(RequestStatus.INITIATED);
+        testRequests.forEach(testRequest -> {
+            assertThat(testRequest.getLabResult(), nullValue());
+            assertThat(testRequest.getConsultation(), nullValue());
+        });
+
+        //Assert
+        assertThat(testRequests.size(), equalTo(5));
+        assertThat(statistics.getPrepareStatementCount(), equalTo(1L));
+    }
+
+    @Test
+    public void a_queue_of_requests_in_the_lab_should_not_query_for_their_consultations() {
+
+        //Act
+        List<TestRequest> testRequests = testRequestRepository.findByStatus(RequestStatus.LAB_TEST_IN_PROGRESS);
+        testRequests.forEach(testRequest -> {
+            assertThat(testRequest.getLabResult(), notNullValue());
+            assertThat(testRequest.getConsultation(), nullValue());
+        });
+
+        //Assert
+        assertThat(testRequests.size(), equalTo(5));
+        assertThat(statistics.getPrepareStatementCount(), equalTo(1L));
+    }
+
+    @Test
+    public void the_locked_select_of_a_transition_should_read_missing_associations_in_the_same_query() {
+
+        //Act
+        List<TestRequest> testRequests = testRequestRepository.findByRequestIdInAndStatus(initiatedIds, RequestStatus.INITIATED);
+        testRequests.forEach(testRequest -> {
+            assertThat(testRequest.getLabResult(), nullValue());
+            assertThat(testRequest.getConsultation(), nullValue());
+        });
+
+        //Assert
+        assertThat(testRequests.size(), equalTo(5));
+        assertThat(statistics.getPrepareStatementCount(), equalTo(1L));
+    }
+
+    @Test
+    public void the_requests_of_a_tester_should_read_lab_results_and_consultations_in_the_same_query() {
+
+        //Act
+        List<TestRequest> testRequests = testRequestRepository.findByTester(tester);
+        testRequests.forEach(testRequest -> assertThat(testRequest.getLabResult(), notNullValue()));
+
+        //Assert
+        assertThat(testRequests.size(), equalTo(15));
+        assertThat(testRequests.stream().filter(testRequest -> null == testRequest.getConsultation()).count(), equalTo(5L));
+        assertThat(statistics.getPrepareStatementCount(), equalTo(1L));
+    }
+
+    @Test
+    public void the_requests_of_a_doctor_should_read_lab_results_and_consultations_in_the_same_query() {
+
+        //Act
+        List<TestRequest> testRequests = testRequestRepository.findByDoctor(doctor);
+        testRequests.forEach(testRequest -> {
+            assertThat(testRequest.getLabResult().getComments(), equalTo("lab result of " + testRequest.getRequestId()));
+            assertThat(testRequest.getConsultation().getComments(), equalTo("consultation of " + testRequest.getRequestId()));
+        });
+
+        //Assert
+        assertThat(testRequests.size(), equalTo(10));
+        assertThat(statistics.getPrepareStatementCount(), equalTo(1L));
+    }
+
+}
@@ -0,0 +1,167 @@
+package org.upgrad.upstac.testrequests;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.upgrad.upstac.testrequests.flow.TestRequestFlowService;
+import org.upgrad.upstac.testrequests.lab.CreateLabResult;
+import org.upgrad.upstac.testrequests.lab.LabResultService;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.roles.UserRole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.nullValue;
+
+//Logs commits, flushes, statements and latency of each transition
+@Slf4j
+class TestRequestTransitionBenchmarkTest extends TestRequestPipelineTest {
+
+    @Autowired
+    CompletedTestRequestCache completedTestRequestCache;
+
+    @Autowired
+    TestRequestRepository testRequestRepository;
+
+    @Autowired
+    LabResultService labResultService;
+
+    @Autowired
+    TestRequestFlowService testRequestFlowService;
+
+    static class Measurement {
+        long commits;
+        long flushes;
+        long statements;
+        long micros;
+    }
+
+    @Test
+    public void every_transition_should_commit_exactly_once() throws IOException {
+
+        //Arrange
+        User user = userService.findByUserName("user");
+        User tester = userService.findByUserName("tester");
+        User doctor = userService.findByUserName("doctor");
+        Long id = testRequestService.createTestRequestFrom(user, createTestRequest()).getRequestId();
+
+        //Act & Assert
+        assertCommittedAndFlushedOnce(measure("assignForLabTest", () -> testRequestUpdateService.assignForLabTest(id, tester)));
+        assertCommittedAndFlushedOnce(measure("updateLabTest", () -> testRequestUpdateService.updateLabTest(id, createLabResult(), tester)));
+        assertThat(testRequestQueryService.findWithOxygenBelow(93, 1, 100).stream().map(TestRequest::getRequestId).collect(Collectors.toList()), hasItem(id));
+        assertCommittedAndFlushedOnce(measure("assignForConsultation", () -> testRequestUpdateService.assignForConsultation(id, doctor)));
+        assertCommittedAndFlushedOnce(measure("updateConsultation", () -> testRequestUpdateService.updateConsultation(id, createConsultationRequest(), doctor)));
+        assertThat(new String(completedTestRequestCache.get(id, "doctor", UserRole.DOCTOR), StandardCharsets.UTF_8), containsString("Take Rest"));
+        assertThat(new String(completedTestRequestCache.get(id), StandardCharsets.UTF_8), containsString("HOME QUARANTINE"));
+        assertThat(completedTestRequestCache.get(id, "tester", UserRole.DOCTOR), nullValue());
+        assertThat(new String(completedTestRequestCache.getHistoryJson(user), StandardCharsets.UTF_8), containsString(new String(completedTestRequestCache.get(id), StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void a_batch_assignment_should_commit_once_for_the_whole_batch() {
+
+        //Arrange
+        User user = userService.findByUserName("user");
+        User tester = userService.findByUserName("tester");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 25; i++)
+            ids.add(testRequestService.createTestRequestFrom(user, createTestRequest()).getRequestId());
+        List<TestRequest> assigned = new ArrayList<>();
+
+        //Act
+        Measurement measurement = measure("assignForLabTest x" + ids.size(), () -> {
+            assigned.addAll(testRequestUpdateService.assignForLabTest(ids, tester));
+            return null;
+        });
+
+        //Assert
+        assertCommittedAndFlushedOnce(measurement);
+        assertThat(assigned.size(), equalTo(ids.size()));
+        assigned.forEach(testRequest -> assertThat(testRequest.getStatus(), equalTo(RequestStatus.LAB_TEST_IN_PROGRESS)));
+    }
+
+    @Test
+    public void a_bulk_lab_result_submission_should_report_bad_items_and_update_the_rest() {
+
+        //Arrange
+        User user = userService.findByUserName("user");
+        User tester = userService.findByUserName("tester");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            ids.add(testRequestService.createTestRequestFrom(user, createTestRequest()).getRequestId());
+        testRequestUpdateService.assignForLabTest(ids.subList(0, 9), tester);
+
+        Map<Long, CreateLabResult> createLabResults = new LinkedHashMap<>();
+        ids.forEach(id -> createLabResults.put(id, createLabResult()));
+        createLabResults.get(ids.get(0)).setResult(null);
+
+        //Act
+        BulkUpdateResult result = testRequestUpdateService.updateLabTests(createLabResults, tester);
+
+        //Assert
+        assertThat(result.getUpdated().size(), equalTo(8));
+        assertThat(result.getErrors().keySet(), containsInAnyOrder(ids.get(0), ids.get(9)));
+        assertThat(result.getErrors().get(ids.get(9)), equalTo("Invalid ID or State"));
+    }
+
+    //Before: the steps of a transition each in a transaction of their own, as they ran until transitions became
+    //one transaction. After: the same transition through the update service.
+    @Test
+    public void one_transaction_per_transition_should_commit_and_flush_less_than_a_transaction_per_step() {
+
+        //Arrange
+        User user = userService.findByUserName("user");
+        User tester = userService.findByUserName("tester");
+        Long stepByStepId = testRequestService.createTestRequestFrom(user, createTestRequest()).getRequestId();
+        Long transitionId = testRequestService.createTestRequestFrom(user, createTestRequest()).getRequestId();
+
+        //Act
+        Measurement before = measure("assignForLabTest, a transaction per step", () -> {
+            TestRequest testRequest = testRequestRepository.findByRequestId(stepByStepId).get();
+            labResultService.assignForLabTest(Collections.singletonList(testRequest), tester);
+            testRequestFlowService.log(testRequest, RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS, tester);
+            testRequest.setStatus(RequestStatus.LAB_TEST_IN_PROGRESS);
+            return testRequestRepository.save(testRequest);
+        });
+        Measurement after = measure("assignForLabTest, one transaction", () -> testRequestUpdateService.assignForLabTest(transitionId, tester));
+
+        //Assert
+        assertCommittedAndFlushedOnce(after);
+        assertThat(before.commits, greaterThan(after.commits));
+        assertThat(before.flushes, greaterThan(after.flushes));
+    }
+
+    private void assertCommittedAndFlushedOnce(Measurement measurement) {
+        assertThat(measurement.commits, equalTo(1L));
+        assertThat(measurement.flushes, equalTo(1L));
+    }
+
+    Measurement measure(String transition, Supplier<TestRequest> call) {
+        statistics.clear();
+        long start = System.nanoTime();
+
+        call.get();
+
+        Measurement measurement = new Measurement();
+        measurement.micros = (System.nanoTime() - start) / 1000;
+        measurement.commits = statistics.getSuccessfulTransactionCount();
+        measurement.flushes = statistics.getFlushCount();
+        measurement.statements = statistics.getPrepareStatementCount();
+        log.info("{}: {} commit(s), {} flush(es), {} statement(s), {} us", transition, measurement.commits, measurement.flushes, measurement.statements, measurement.micros);
+        return measurement;
+    }
+}
@@ -0,0 +1,84 @@
+package org.upgrad.upstac.testrequests;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.upgrad.upstac.testrequests.lab.CreateLabResult;
+import org.upgrad.upstac.users.User;
+
+import javax.validation.Validator;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class TestRequestUpdateServiceTest {
+
+    @Mock
+    TestRequestTransitionService testRequestTransitionService;
+
+    @Mock
+    Validator validator;
+
+    @InjectMocks
+    TestRequestUpdateService testRequestUpdateService;
+
+    @Test
+    public void when_one_item_fails_its_chunk_expect_only_that_item_reported() {
+
+        //Arrange
+        User tester = new User();
+        Map<Long, CreateLabResult> createLabResults = new LinkedHashMap<>();
+        for (long id = 1; id <= 3; id++)
+            createLabResults.put(id, new CreateLabResult());
+
+        Mockito.when(testRequestTransitionService.apply(RequestTransition.UPDATE_LAB_TEST, createLabResults, tester))
+                .thenThrow(new IllegalStateException("Data truncation"));
+        Mockito.when(testRequestTransitionService.apply(eq(RequestTransition.UPDATE_LAB_TEST), eq(Collections.singletonMap(2L, createLabResults.get(2L))), eq(tester)))
+                .thenThrow(new IllegalStateException("Data truncation"));
+        for (long id : new long[]{1, 3})
+            Mockito.when(testRequestTransitionService.apply(eq(RequestTransition.UPDATE_LAB_TEST), eq(Collections.singletonMap(id, createLabResults.get(id))), eq(tester)))
+                    .thenReturn(Collections.singletonList(getTestRequest(id)));
+
+        //Act
+        BulkUpdateResult result = testRequestUpdateService.updateLabTests(createLabResults, tester);
+
+        //Assert
+        assertThat(result.getUpdated().stream().map(TestRequest::getRequestId).collect(Collectors.toList()), contains(1L, 3L));
+        assertThat(result.getErrors(), equalTo(Collections.singletonMap(2L, "Data truncation")));
+    }
+
+    @Test
+    public void when_a_lab_result_loses_the_insert_of_its_daily_row_expect_it_applied_again() {
+
+        //Arrange
+        User tester = new User();
+        CreateLabResult createLabResult = new CreateLabResult();
+        Mockito.when(testRequestTransitionService.apply(RequestTransition.UPDATE_LAB_TEST, Collections.singletonMap(1L, createLabResult), tester))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry"))
+                .thenReturn(Collections.singletonList(getTestRequest(1L)));
+
+        //Act
+        TestRequest testRequest = testRequestUpdateService.updateLabTest(1L, createLabResult, tester);
+
+        //Assert
+        assertThat(testRequest.getRequestId(), equalTo(1L));
+    }
+
+
+    private TestRequest getTestRequest(Long id) {
+        TestRequest testRequest = new TestRequest();
+        testRequest.setRequestId(id);
+        return testRequest;
+    }
+
+}
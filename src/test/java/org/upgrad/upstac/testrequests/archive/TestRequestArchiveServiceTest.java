@@ -0,0 +1,71 @@
+package org.upgrad.upstac.testrequests.archive;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.upgrad.upstac.testrequests.CompletedTestRequestCache;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequestPipelineTest;
+import org.upgrad.upstac.testrequests.TestRequestTransitionService;
+import org.upgrad.upstac.testrequests.positivity.DailyPositivity;
+import org.upgrad.upstac.testrequests.positivity.DailyPositivityService;
+import org.upgrad.upstac.testrequests.stats.TestRequestStatsService;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.roles.UserRole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+class TestRequestArchiveServiceTest extends TestRequestPipelineTest {
+
+    @Autowired
+    TestRequestArchiveService testRequestArchiveService;
+
+    @Autowired
+    TestRequestStatsService testRequestStatsService;
+
+    @Autowired
+    DailyPositivityService dailyPositivityService;
+
+    @Autowired
+    CompletedTestRequestCache completedTestRequestCache;
+
+    @Test
+    public void archived_requests_should_leave_the_working_tables_but_not_history_or_counts() throws IOException {
+
+        //Arrange
+        User user = userService.findByUserName("user");
+        User tester = userService.findByUserName("tester");
+        User doctor = userService.findByUserName("doctor");
+        Long id = testRequestService.createTestRequestFrom(user, createTestRequest()).getRequestId();
+        testRequestUpdateService.assignForLabTest(id, tester);
+        testRequestUpdateService.updateLabTest(id, createLabResult(), tester);
+        testRequestUpdateService.assignForConsultation(id, doctor);
+        testRequestUpdateService.updateConsultation(id, createConsultationRequest(), doctor);
+
+        LocalDate today = LocalDate.now();
+        testRequestStatsService.reconcile();
+        long completed = testRequestStatsService.getStats().getRequests().get(RequestStatus.COMPLETED);
+        dailyPositivityService.rebuild(today);
+        long tested = dailyPositivityService.findBetween(today, today, null).stream().mapToLong(DailyPositivity::getTested).sum();
+
+        //Act
+        int archived = testRequestArchiveService.archiveChunk(today.plusDays(1), TestRequestTransitionService.MAX_BATCH_SIZE);
+        testRequestStatsService.reconcile();
+        dailyPositivityService.rebuild(today);
+
+        //Assert
+        assertThat(archived, greaterThan(0));
+        assertThat(testRequestQueryService.getTestRequestById(id).isPresent(), equalTo(false));
+        assertThat(new String(completedTestRequestCache.getHistoryJson(user), StandardCharsets.UTF_8), containsString("\"requestId\":" + id + ","));
+        assertThat(testRequestArchiveService.findDocumentFor("doctor", UserRole.DOCTOR, id).isPresent(), equalTo(true));
+        assertThat(testRequestArchiveService.findDocumentFor("tester", UserRole.USER, id).isPresent(), equalTo(false));
+        assertThat(testRequestStatsService.getStats().getRequests().get(RequestStatus.COMPLETED), equalTo(completed));
+        assertThat(dailyPositivityService.findBetween(today, today, null).stream().mapToLong(DailyPositivity::getTested).sum(), equalTo(tested));
+    }
+}
@@ -0,0 +1,72 @@
+package org.upgrad.upstac.testrequests.consultation;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestPipelineTest;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.models.AccountStatus;
+import org.upgrad.upstac.users.roles.UserRole;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.upgrad.upstac.config.loaddata.AppInitializationService.createRegisterRequestWith;
+
+class ConsultationAutoAssignTest extends TestRequestPipelineTest {
+
+    @Autowired
+    ConsultationDispatcher consultationDispatcher;
+
+    @Test
+    public void with_auto_assignment_a_lab_result_should_go_to_the_least_loaded_approved_doctor() throws InterruptedException {
+
+        //Arrange
+        User user = userService.findByUserName("user");
+        User tester = userService.findByUserName("tester");
+        userService.updateApprovalStatus(userService.addDoctor(createRegisterRequestWith("idledoctor", 500002)).getId(), AccountStatus.APPROVED);
+        Long id = testRequestService.createTestRequestFrom(user, createTestRequest()).getRequestId();
+        testRequestUpdateService.assignForLabTest(id, tester);
+        ReflectionTestUtils.setField(consultationDispatcher, "enabled", true);
+
+        try {
+            consultationDispatcher.reconcile();
+            Map<String, Integer> before = consultationDispatcher.getStatus().getOpenConsultations();
+            int lowest = Collections.min(before.values());
+            ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(consultationDispatcher, "executor");
+            long dispatched = executor.getCompletedTaskCount();
+
+            //Act
+            testRequestUpdateService.updateLabTest(id, createLabResult(), tester);
+            awaitDispatches(executor, dispatched + 1);
+
+            //Assert
+            TestRequest testRequest = testRequestQueryService.findTestRequestFor("authority", UserRole.GOVERNMENT_AUTHORITY, id).orElseThrow(AssertionError::new);
+            assertThat(testRequest.getStatus(), equalTo(RequestStatus.DIAGNOSIS_IN_PROCESS));
+            String doctor = testRequest.getConsultation().getDoctor().getUserName();
+            assertThat(before.keySet(), hasItem("idledoctor"));
+            assertThat(before.get(doctor), equalTo(lowest));
+
+            ConsultationDispatchStatus after = consultationDispatcher.getStatus();
+            assertThat(after.getOpenConsultations().get(doctor), equalTo(lowest + 1));
+            assertThat(after.getAutoAssigned(), greaterThan(0L));
+            assertThat(after.getAssignments(), greaterThan(0L));
+        } finally {
+            ReflectionTestUtils.setField(consultationDispatcher, "enabled", false);
+        }
+    }
+
+    //The assignment runs on the dispatcher's own thread after the lab result commits
+    private void awaitDispatches(ThreadPoolExecutor executor, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (executor.getCompletedTaskCount() < count && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+    }
+}
@@ -0,0 +1,87 @@
+package org.upgrad.upstac.testrequests.consultation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.upgrad.upstac.testrequests.TestRequestUpdateService;
+import org.upgrad.upstac.testrequests.lab.LabResultRepository;
+import org.upgrad.upstac.users.User;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class ConsultationDispatcherTest {
+
+    @Mock
+    TestRequestUpdateService testRequestUpdateService;
+
+    @Mock
+    LabResultRepository labResultRepository;
+
+    @InjectMocks
+    ConsultationDispatcher consultationDispatcher;
+
+    @Test
+    public void when_counts_are_reset_during_a_dispatch_expect_its_reservation_kept_until_released() {
+
+        //Arrange
+        User doctor = new User();
+        doctor.setUserName("doctor");
+        Map<String, User> doctors = new LinkedHashMap<>();
+        doctors.put("doctor", doctor);
+        ReflectionTestUtils.setField(consultationDispatcher, "doctors", doctors);
+
+        Map<String, Integer> loadsDuringDispatch = new LinkedHashMap<>();
+        Mockito.when(testRequestUpdateService.assignForConsultationInNewTransaction(any(), eq(doctor))).thenAnswer(invocation -> {
+            consultationDispatcher.resetLoads(Collections.singletonMap("doctor", 2L));
+            loadsDuringDispatch.putAll(consultationDispatcher.getStatus().getOpenConsultations());
+            return Collections.emptyList();
+        });
+
+        //Act
+        consultationDispatcher.dispatch(1L);
+
+        //Assert
+        assertThat(loadsDuringDispatch.get("doctor"), equalTo(3));
+        assertThat(consultationDispatcher.getStatus().getOpenConsultations().get("doctor"), equalTo(2));
+    }
+
+    @Test
+    public void when_reservations_race_expect_them_spread_evenly() throws InterruptedException {
+
+        //Arrange
+        Map<String, User> doctors = new LinkedHashMap<>();
+        for (String userName : new String[]{"doctor", "otherdoctor"}) {
+            User doctor = new User();
+            doctor.setUserName(userName);
+            doctors.put(userName, doctor);
+        }
+        ReflectionTestUtils.setField(consultationDispatcher, "doctors", doctors);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+        //Act
+        for (int i = 0; i < 200; i++)
+            executorService.execute(() -> consultationDispatcher.reserveLeastLoaded());
+        executorService.shutdown();
+        executorService.awaitTermination(10, TimeUnit.SECONDS);
+
+        //Assert
+        assertThat(consultationDispatcher.getStatus().getOpenConsultations().get("doctor"), equalTo(100));
+        assertThat(consultationDispatcher.getStatus().getOpenConsultations().get("otherdoctor"), equalTo(100));
+    }
+
+}
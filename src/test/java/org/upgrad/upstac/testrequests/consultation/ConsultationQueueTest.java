@@ -0,0 +1,52 @@
+package org.upgrad.upstac.testrequests.consultation;
+
+import org.junit.jupiter.api.Test;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestPipelineTest;
+import org.upgrad.upstac.testrequests.lab.CreateLabResult;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+import org.upgrad.upstac.users.User;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+class ConsultationQueueTest extends TestRequestPipelineTest {
+
+    @Test
+    public void the_consultation_queue_should_be_served_most_severe_first() {
+
+        //Arrange
+        User user = userService.findByUserName("user");
+        User tester = userService.findByUserName("tester");
+        CreateLabResult routine = createLabResult();
+        routine.setResult(TestStatus.NEGATIVE);
+        routine.setTemperature("98.6");
+        routine.setOxygenLevel("98");
+        CreateLabResult severe = createLabResult();
+        severe.setOxygenLevel("85");
+        Long routineId = testRequestService.createTestRequestFrom(user, createTestRequest()).getRequestId();
+        Long severeId = testRequestService.createTestRequestFrom(user, createTestRequest()).getRequestId();
+        testRequestUpdateService.assignForLabTest(Arrays.asList(routineId, severeId), tester);
+        testRequestUpdateService.updateLabTest(routineId, routine, tester);
+        testRequestUpdateService.updateLabTest(severeId, severe, tester);
+
+        //Act
+        List<TestRequest> queue = testRequestQueryService.findByPriority(RequestStatus.LAB_TEST_COMPLETED, null);
+        List<TestRequest> head = testRequestQueryService.findByPriority(RequestStatus.LAB_TEST_COMPLETED, 1);
+
+        //Assert
+        List<Long> ids = queue.stream().map(TestRequest::getRequestId).collect(Collectors.toList());
+        List<Integer> scores = queue.stream().map(TestRequest::getPriorityScore).collect(Collectors.toList());
+        assertThat(ids.get(0), equalTo(severeId));
+        assertThat(ids.get(ids.size() - 1), equalTo(routineId));
+        assertThat(scores, equalTo(scores.stream().sorted(Collections.reverseOrder()).collect(Collectors.toList())));
+        assertThat(head.stream().map(TestRequest::getRequestId).collect(Collectors.toList()), contains(severeId));
+    }
+}
@@ -0,0 +1,45 @@
+package org.upgrad.upstac.testrequests.export;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequestPipelineTest;
+import org.upgrad.upstac.users.User;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+class TestRequestExportServiceTest extends TestRequestPipelineTest {
+
+    @Autowired
+    TestRequestExportService testRequestExportService;
+
+    @Test
+    public void an_export_should_stream_every_matching_row() throws IOException {
+
+        //Arrange
+        User user = userService.findByUserName("user");
+        User tester = userService.findByUserName("tester");
+        Long id = testRequestService.createTestRequestFrom(user, createTestRequest()).getRequestId();
+        testRequestUpdateService.assignForLabTest(id, tester);
+        long inProgress = testRequestQueryService.findBy(RequestStatus.LAB_TEST_IN_PROGRESS).size();
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+
+        //Act
+        long csvRows = testRequestExportService.export(csv, TestRequestExportService.Format.CSV, RequestStatus.LAB_TEST_IN_PROGRESS, LocalDate.now(), null);
+        long ndjsonRows = testRequestExportService.export(ndjson, TestRequestExportService.Format.NDJSON, RequestStatus.LAB_TEST_IN_PROGRESS, null, null);
+
+        //Assert
+        String[] lines = csv.toString("UTF-8").split("\n");
+        assertThat(csvRows, equalTo(inProgress));
+        assertThat(ndjsonRows, equalTo(inProgress));
+        assertThat(lines.length, equalTo((int) inProgress + 1));
+        assertThat(ndjson.toString("UTF-8"), containsString("{\"requestId\":" + id + ",\"created\":\"" + LocalDate.now() + "\",\"status\":\"LAB_TEST_IN_PROGRESS\""));
+    }
+}
@@ -0,0 +1,61 @@
+package org.upgrad.upstac.testrequests.flow;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequestPipelineTest;
+import org.upgrad.upstac.users.User;
+
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChangeFeedServiceTest extends TestRequestPipelineTest {
+
+    @Autowired
+    ChangeFeedService changeFeedService;
+
+    @Test
+    public void the_change_feed_should_page_from_a_cursor_and_expire_cursors_past_retention() {
+
+        //Arrange
+        User user = userService.findByUserName("user");
+        User tester = userService.findByUserName("tester");
+        //A change before the cursor, aged past retention below
+        testRequestUpdateService.assignForLabTest(testRequestService.createTestRequestFrom(user, createTestRequest()).getRequestId(), tester);
+        Long since = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from test_request_flow", Long.class);
+        Long id = testRequestService.createTestRequestFrom(user, createTestRequest()).getRequestId();
+        testRequestUpdateService.assignForLabTest(id, tester);
+        testRequestUpdateService.updateLabTest(id, createLabResult(), tester);
+        ReflectionTestUtils.setField(changeFeedService, "settleMillis", 0L);
+
+        try {
+            //Act
+            statistics.clear();
+            ChangePage first = changeFeedService.getChanges(since, 1);
+            long statements = statistics.getPrepareStatementCount();
+            ChangePage second = changeFeedService.getChanges(first.getNextCursor(), 10);
+            ChangePage again = changeFeedService.getChanges(since, 10);
+            ReflectionTestUtils.setField(changeFeedService, "settleMillis", 60000L);
+            ChangePage unsettled = changeFeedService.getChanges(since, 10);
+            jdbcTemplate.update("update test_request_flow set happened_at = dateadd('DAY', -60, happened_at) where id <= ?", since);
+
+            //Assert
+            assertThat(statements, equalTo(2L));
+            assertThat(first.getChanges().stream().map(ChangeRecord::getTo).collect(Collectors.toList()), contains(RequestStatus.LAB_TEST_IN_PROGRESS));
+            assertThat(first.isHasMore(), equalTo(true));
+            assertThat(second.getChanges().stream().map(ChangeRecord::getTo).collect(Collectors.toList()), contains(RequestStatus.LAB_TEST_COMPLETED));
+            assertThat(second.getChanges().get(0).getRequestId(), equalTo(id));
+            assertThat(second.isHasMore(), equalTo(false));
+            assertThat(unsettled.getChanges().isEmpty() && unsettled.getNextCursor().equals(since), equalTo(true));
+            assertThat(again.getChanges().size(), equalTo(2));
+            assertThrows(CursorExpiredException.class, () -> changeFeedService.getChanges(0L, 10));
+        } finally {
+            ReflectionTestUtils.setField(changeFeedService, "settleMillis", 5000L);
+        }
+    }
+}
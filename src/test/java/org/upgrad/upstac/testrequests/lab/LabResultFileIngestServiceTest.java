@@ -0,0 +1,219 @@
+package org.upgrad.upstac.testrequests.lab;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.testrequests.BulkUpdateResult;
+import org.upgrad.upstac.testrequests.TestRequestUpdateService;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.UserService;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class LabResultFileIngestServiceTest {
+
+    @Mock
+    TestRequestUpdateService testRequestUpdateService;
+
+    @Mock
+    UserService userService;
+
+    @InjectMocks
+    LabResultFileIngestService labResultFileIngestService;
+
+    @TempDir
+    Path dropDirectory;
+
+    User tester = new User();
+
+    //Copies of the blocks applied, as the service reuses one map for every block
+    List<Map<Long, CreateLabResult>> blocks = new ArrayList<>();
+
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        ReflectionTestUtils.setField(labResultFileIngestService, "labResultsDir", dropDirectory.toString());
+        ReflectionTestUtils.setField(labResultFileIngestService, "ingestUserName", "lab-analyser");
+        labResultFileIngestService.openDropDirectory();
+        tester.setUserName("lab-analyser");
+    }
+
+    @Test
+    public void when_a_line_has_all_columns_expect_a_lab_result_with_comments_kept_whole() {
+
+        //Act
+        CreateLabResult createLabResult = LabResultFileIngestService.toCreateLabResult(
+                "101, negative ,120/80,72,98.6,95,Rest, fluids".split(",", 7));
+
+        //Assert
+        assertThat(createLabResult.getResult(), equalTo(TestStatus.NEGATIVE));
+        assertThat(createLabResult.getBloodPressure(), equalTo("120/80"));
+        assertThat(createLabResult.getHeartBeat(), equalTo("72"));
+        assertThat(createLabResult.getTemperature(), equalTo("98.6"));
+        assertThat(createLabResult.getOxygenLevel(), equalTo("95"));
+        assertThat(createLabResult.getComments(), equalTo("Rest, fluids"));
+    }
+
+    @Test
+    public void when_a_line_has_too_few_columns_expect_exception() {
+
+        //Act & Assert
+        assertThrows(AppException.class, () -> LabResultFileIngestService.toCreateLabResult("101,NEGATIVE,120/80".split(",", 7)));
+    }
+
+    @Test
+    public void when_every_line_applies_expect_the_file_moved_to_processed() throws IOException {
+
+        //Arrange
+        Path file = writeFile("results.csv", "requestId,result,bloodPressure,heartBeat,temperature,oxygenLevel,comments",
+                "101,NEGATIVE,120/80,72,98.6,95,Rest",
+                "102,POSITIVE,130/85,90,101,91,Isolate");
+        applyAll(new BulkUpdateResult());
+
+        //Act
+        labResultFileIngestService.ingest(file);
+
+        //Assert
+        assertThat(blocks, hasSize(1));
+        assertThat(blocks.get(0).keySet(), contains(101L, 102L));
+        assertThat(Files.exists(file), equalTo(false));
+        assertThat(Files.exists(labResultFileIngestService.getProcessedDirectory().resolve("results.csv")), equalTo(true));
+        assertThat(labResultFileIngestService.getStatus().getFilesProcessed(), equalTo(1L));
+    }
+
+    @Test
+    public void when_lines_are_duplicated_or_unreadable_expect_the_others_applied_and_the_file_moved_to_failed() throws IOException {
+
+        //Arrange
+        Path file = writeFile("results.csv",
+                "101,NEGATIVE,120/80,72,98.6,95,Rest",
+                "101,POSITIVE,130/85,90,101,91,Isolate",
+                "102,UNKNOWN,120/80,72,98.6,95,Rest",
+                "103,NEGATIVE,120/80,72,98.6,95,Rest");
+        applyAll(new BulkUpdateResult());
+
+        //Act
+        labResultFileIngestService.ingest(file);
+
+        //Assert
+        assertThat(blocks, hasSize(1));
+        assertThat(blocks.get(0).keySet(), contains(101L, 103L));
+        assertThat(blocks.get(0).get(101L).getResult(), equalTo(TestStatus.NEGATIVE));
+
+        List<String> errors = readErrors("results.csv");
+        assertThat(errors, hasSize(2));
+        assertThat(errors.get(0), startsWith("line 2: duplicate request id 101"));
+        assertThat(errors.get(1), startsWith("line 3: "));
+        assertThat(Files.exists(file), equalTo(false));
+    }
+
+    @Test
+    public void when_requests_cannot_take_their_results_expect_them_reported_with_their_line() throws IOException {
+
+        //Arrange
+        Path file = writeFile("results.csv",
+                "101,NEGATIVE,120/80,72,98.6,95,Rest",
+                "102,NEGATIVE,120/80,72,98.6,95,Rest");
+        BulkUpdateResult result = new BulkUpdateResult();
+        result.addError(102L, "is not in LAB_TEST_IN_PROGRESS");
+        applyAll(result);
+
+        //Act
+        labResultFileIngestService.ingest(file);
+
+        //Assert
+        assertThat(readErrors("results.csv"), contains("line 2: request 102 is not in LAB_TEST_IN_PROGRESS"));
+        assertThat(labResultFileIngestService.getStatus().getFilesFailed(), equalTo(1L));
+    }
+
+    @Test
+    public void when_the_ingest_user_does_not_exist_expect_nothing_applied_and_the_file_moved_to_failed() throws IOException {
+
+        //Arrange
+        Path file = writeFile("results.csv", "101,NEGATIVE,120/80,72,98.6,95,Rest");
+
+        //Act
+        labResultFileIngestService.ingest(file);
+
+        //Assert
+        Mockito.verifyNoInteractions(testRequestUpdateService);
+        assertThat(readErrors("results.csv"), contains("file: Ingest user lab-analyser does not exist"));
+    }
+
+    @Test
+    public void when_a_file_cannot_be_moved_expect_it_skipped_until_it_changes() throws IOException {
+
+        //Arrange
+        Path file = writeFile("results.csv", "101,NEGATIVE,120/80,72,98.6,95,Rest");
+        Files.delete(labResultFileIngestService.getProcessedDirectory());
+        Files.createFile(labResultFileIngestService.getProcessedDirectory());
+        applyAll(new BulkUpdateResult());
+        assertThat(labResultFileIngestService.getReadyFiles(), contains(file));
+
+        //Act
+        labResultFileIngestService.ingest(file);
+
+        //Assert
+        assertThat(Files.exists(file), equalTo(true));
+        assertThat(labResultFileIngestService.getReadyFiles(), empty());
+
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 5000));
+        assertThat(labResultFileIngestService.getReadyFiles(), contains(file));
+    }
+
+    @Test
+    public void when_the_ingest_user_is_not_set_expect_watching_not_started() {
+
+        //Arrange
+        ReflectionTestUtils.setField(labResultFileIngestService, "ingestUserName", "");
+
+        //Act & Assert
+        assertThrows(AppException.class, () -> labResultFileIngestService.start());
+    }
+
+
+    //Written as settled, so the ready scan picks them up
+    private Path writeFile(String name, String... lines) throws IOException {
+        Path file = Files.write(dropDirectory.resolve(name), Arrays.asList(lines), StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 10000));
+        return file;
+    }
+
+    private List<String> readErrors(String name) throws IOException {
+        Path failed = labResultFileIngestService.getFailedDirectory();
+        assertThat(Files.exists(failed.resolve(name)), equalTo(true));
+        return Files.readAllLines(failed.resolve(name + ".errors"), StandardCharsets.UTF_8);
+    }
+
+    private void applyAll(BulkUpdateResult result) {
+        Mockito.when(userService.findByUserName("lab-analyser")).thenReturn(tester);
+        Mockito.when(testRequestUpdateService.updateLabTests(any(), eq(tester))).thenAnswer(invocation -> {
+            blocks.add(new LinkedHashMap<>(invocation.<Map<Long, CreateLabResult>>getArgument(0)));
+            return result;
+        });
+    }
+
+}
@@ -0,0 +1,38 @@
+package org.upgrad.upstac.testrequests.lab;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class SeverityScoreTest {
+
+    private LabResult labResultWith(TestStatus result, Integer oxygenSaturation, Double temperatureCelsius) {
+        LabResult labResult = new LabResult();
+        labResult.setResult(result);
+        labResult.setOxygenSaturation(oxygenSaturation);
+        labResult.setTemperatureCelsius(temperatureCelsius);
+        return labResult;
+    }
+
+    @Test
+    public void when_negative_with_normal_vitals_expect_zero() {
+
+        //Act & Assert
+        assertThat(SeverityScore.of(labResultWith(TestStatus.NEGATIVE, 98, 36.8), 30), equalTo(0));
+        assertThat(SeverityScore.of(labResultWith(TestStatus.NEGATIVE, null, null), null), equalTo(0));
+    }
+
+    @Test
+    public void when_positive_with_low_oxygen_expect_it_ahead_of_a_feverish_elderly_negative() {
+
+        //Arrange
+        int positiveWithLowOxygen = SeverityScore.of(labResultWith(TestStatus.POSITIVE, 88, 37.0), 30);
+        int negativeFeverishElderly = SeverityScore.of(labResultWith(TestStatus.NEGATIVE, 96, 39.5), 85);
+
+        //Assert
+        assertThat(positiveWithLowOxygen, greaterThan(negativeFeverishElderly));
+        assertThat(SeverityScore.of(labResultWith(TestStatus.POSITIVE, 60, 42.0), 100), lessThanOrEqualTo(1000));
+    }
+
+}
@@ -0,0 +1,81 @@
+package org.upgrad.upstac.testrequests.lab;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.UserService;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+
+@ExtendWith(MockitoExtension.class)
+class TesterCoverageServiceTest {
+
+    @Mock
+    TesterCoverageRepository testerCoverageRepository;
+
+    @Mock
+    UserService userService;
+
+    @Mock
+    ApplicationEventPublisher applicationEventPublisher;
+
+    @InjectMocks
+    TesterCoverageService testerCoverageService;
+
+    @Test
+    public void when_coverage_is_replaced_expect_the_old_pin_codes_until_the_change_commits() {
+
+        //Arrange
+        ReflectionTestUtils.setField(testerCoverageService, "cacheTtlMillis", 60000L);
+        User tester = Mockito.mock(User.class);
+        Mockito.when(tester.doesRoleIsTester()).thenReturn(true);
+        Mockito.when(tester.getUserName()).thenReturn("areatester");
+        Mockito.when(userService.findById(7L)).thenReturn(Optional.of(tester));
+        Mockito.when(testerCoverageRepository.findPinCodesByTesterUserName("areatester"))
+                .thenReturn(Collections.singletonList(600001))
+                .thenReturn(Arrays.asList(600002, 600003));
+        testerCoverageService.getPinCodesFor("areatester");
+
+        //Act
+        testerCoverageService.updateCoverage(7L, new HashSet<>(Arrays.asList(600002, 600003)));
+
+        //Assert
+        assertThat(testerCoverageService.getPinCodesFor("areatester"), contains(600001));
+
+        ArgumentCaptor<TesterCoverageUpdatedEvent> event = ArgumentCaptor.forClass(TesterCoverageUpdatedEvent.class);
+        Mockito.verify(applicationEventPublisher).publishEvent(event.capture());
+        testerCoverageService.onCoverageUpdated(event.getValue());
+        assertThat(testerCoverageService.getPinCodesFor("areatester"), contains(600002, 600003));
+    }
+
+    @Test
+    public void when_the_cached_coverage_is_older_than_the_ttl_expect_it_loaded_again() throws InterruptedException {
+
+        //Arrange
+        ReflectionTestUtils.setField(testerCoverageService, "cacheTtlMillis", 1L);
+        Mockito.when(testerCoverageRepository.findPinCodesByTesterUserName("areatester"))
+                .thenReturn(Collections.singletonList(600001))
+                .thenReturn(Collections.singletonList(600002));
+        testerCoverageService.getPinCodesFor("areatester");
+
+        //Act
+        Thread.sleep(5);
+
+        //Assert
+        assertThat(testerCoverageService.getPinCodesFor("areatester"), contains(600002));
+    }
+
+}
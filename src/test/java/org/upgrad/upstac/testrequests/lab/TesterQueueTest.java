@@ -0,0 +1,56 @@
+package org.upgrad.upstac.testrequests.lab;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestPipelineTest;
+import org.upgrad.upstac.testrequests.TestRequestVersionService;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.models.AccountStatus;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.upgrad.upstac.config.loaddata.AppInitializationService.createRegisterRequestWith;
+
+class TesterQueueTest extends TestRequestPipelineTest {
+
+    @Autowired
+    TesterCoverageService testerCoverageService;
+
+    @Autowired
+    TestRequestVersionService testRequestVersionService;
+
+    @Test
+    public void a_tester_queue_should_only_hold_and_version_the_pin_codes_they_serve() {
+
+        //Arrange
+        User user = userService.findByUserName("user");
+        Long testerId = userService.addTester(createRegisterRequestWith("areatester", 600001)).getId();
+        userService.updateApprovalStatus(testerId, AccountStatus.APPROVED);
+        testerCoverageService.updateCoverage(testerId, new HashSet<>(Arrays.asList(600001, 600002)));
+        Set<Integer> pinCodes = testerCoverageService.getPinCodesFor("areatester");
+        Long covered = createTestRequestIn(user, 600002);
+        String eTag = testRequestVersionService.getETagFor(RequestStatus.INITIATED, pinCodes);
+
+        //Act
+        createTestRequestIn(user, 600009);
+        String eTagAfterOtherArea = testRequestVersionService.getETagFor(RequestStatus.INITIATED, pinCodes);
+        Long alsoCovered = createTestRequestIn(user, 600001);
+        String eTagAfterOwnArea = testRequestVersionService.getETagFor(RequestStatus.INITIATED, pinCodes);
+        List<TestRequest> queue = testRequestQueryService.findBy(RequestStatus.INITIATED, pinCodes);
+
+        //Assert
+        assertThat(pinCodes, contains(600001, 600002));
+        assertThat(queue.stream().map(TestRequest::getRequestId).collect(Collectors.toList()), contains(covered, alsoCovered));
+        assertThat(eTagAfterOtherArea, equalTo(eTag));
+        assertThat(eTagAfterOwnArea.equals(eTag), equalTo(false));
+    }
+}
@@ -0,0 +1,49 @@
+package org.upgrad.upstac.testrequests.lab;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class VitalSignsParserTest {
+
+    @Test
+    public void when_blood_pressure_has_both_readings_expect_systolic_and_diastolic() {
+
+        //Act
+        Integer[] bloodPressure = VitalSignsParser.parseBloodPressure(" 120 / 80 mmHg");
+
+        //Assert
+        assertThat(bloodPressure, arrayContaining(120, 80));
+    }
+
+    @Test
+    public void when_blood_pressure_has_only_systolic_expect_no_diastolic() {
+
+        //Act
+        Integer[] bloodPressure = VitalSignsParser.parseBloodPressure("120");
+
+        //Assert
+        assertThat(bloodPressure[0], equalTo(120));
+        assertThat(bloodPressure[1], nullValue());
+    }
+
+    @Test
+    public void when_temperature_is_in_fahrenheit_expect_celsius() {
+
+        //Act & Assert
+        assertThat(VitalSignsParser.parseTemperatureCelsius("100.4 F"), equalTo(38.0));
+        assertThat(VitalSignsParser.parseTemperatureCelsius("37.2"), equalTo(37.2));
+    }
+
+    @Test
+    public void when_values_cannot_be_read_or_are_implausible_expect_null() {
+
+        //Act & Assert
+        assertThat(VitalSignsParser.parseOxygenSaturation("92%"), equalTo(92));
+        assertThat(VitalSignsParser.parseOxygenSaturation("120"), nullValue());
+        assertThat(VitalSignsParser.parseHeartRate("normal"), nullValue());
+        assertThat(VitalSignsParser.parseTemperatureCelsius(null), nullValue());
+    }
+
+}
@@ -0,0 +1,58 @@
+package org.upgrad.upstac.testrequests.positivity;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.upgrad.upstac.testrequests.CreateTestRequest;
+import org.upgrad.upstac.testrequests.TestRequestPipelineTest;
+import org.upgrad.upstac.testrequests.lab.CreateLabResult;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+import org.upgrad.upstac.users.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class DailyPositivityServiceTest extends TestRequestPipelineTest {
+
+    @Autowired
+    DailyPositivityService dailyPositivityService;
+
+    @Autowired
+    DailyPositivityJob dailyPositivityJob;
+
+    @Test
+    public void daily_positivity_should_count_each_result_once_and_rebuild_to_the_same_rows() {
+
+        //Arrange
+        User user = userService.findByUserName("user");
+        User tester = userService.findByUserName("tester");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            CreateTestRequest createTestRequest = createTestRequest();
+            createTestRequest.setPinCode(110001);
+            ids.add(testRequestService.createTestRequestFrom(user, createTestRequest).getRequestId());
+        }
+        testRequestUpdateService.assignForLabTest(ids, tester);
+        Map<Long, CreateLabResult> createLabResults = new LinkedHashMap<>();
+        ids.forEach(id -> createLabResults.put(id, createLabResult()));
+        createLabResults.get(ids.get(0)).setResult(TestStatus.NEGATIVE);
+        LocalDate today = LocalDate.now();
+
+        //Act
+        testRequestUpdateService.updateLabTests(createLabResults, tester);
+        List<DailyPositivity> recorded = dailyPositivityService.findBetween(today, today, 110001);
+        dailyPositivityJob.rebuild(today, today);
+        List<DailyPositivity> rebuilt = dailyPositivityService.findBetween(today, today, 110001);
+
+        //Assert
+        assertThat(recorded.size(), equalTo(1));
+        assertThat(recorded.get(0).getTested(), equalTo(3L));
+        assertThat(recorded.get(0).getPositive(), equalTo(2L));
+        assertThat(rebuilt, equalTo(recorded));
+    }
+}
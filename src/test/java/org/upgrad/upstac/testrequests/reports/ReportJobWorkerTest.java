@@ -0,0 +1,91 @@
+package org.upgrad.upstac.testrequests.reports;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.upgrad.upstac.testrequests.TestRequestPipelineTest;
+import org.upgrad.upstac.users.User;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class ReportJobWorkerTest extends TestRequestPipelineTest {
+
+    @Autowired
+    ReportJobService reportJobService;
+
+    @Autowired
+    ReportJobWorker reportJobWorker;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    public void a_report_job_should_be_claimed_run_and_written_to_a_file() throws Exception {
+
+        //Arrange
+        User authority = userService.findByUserName("authority");
+        CreateReportJob createReportJob = new CreateReportJob();
+        createReportJob.setType(ReportType.TESTER_PRODUCTIVITY);
+        createReportJob.setFrom(LocalDate.now().minusDays(1).toString());
+        createReportJob.setTo(LocalDate.now().toString());
+        Long id = reportJobService.submit(createReportJob, authority).getId();
+
+        //Act
+        ReportJob reportJob = reportJobService.getJob(id, authority);
+        for (int i = 0; i < 50 && reportJob.getStatus() != ReportJobStatus.COMPLETED && reportJob.getStatus() != ReportJobStatus.FAILED; i++) {
+            reportJobWorker.poll();
+            Thread.sleep(100);
+            reportJob = reportJobService.getJob(id, authority);
+        }
+
+        //Assert
+        assertThat(reportJob.getStatus(), equalTo(ReportJobStatus.COMPLETED));
+        List<String> lines = Files.readAllLines(reportJobService.getReportFile(reportJob));
+        assertThat(lines.get(0), equalTo("day,tester,results"));
+        assertThat(lines.size() - 1L, equalTo(reportJob.getRowsWritten()));
+    }
+
+    @Test
+    public void a_run_that_lost_its_claim_should_leave_the_new_owners_file_alone() throws Exception {
+
+        //Arrange
+        User authority = userService.findByUserName("authority");
+        CreateReportJob createReportJob = new CreateReportJob();
+        createReportJob.setType(ReportType.TESTER_PRODUCTIVITY);
+        createReportJob.setFrom(LocalDate.now().minusDays(1).toString());
+        createReportJob.setTo(LocalDate.now().toString());
+        //Submitted and claimed in one transaction, so the scheduled poll never sees it queued
+        ReportJob reportJob = transactionTemplate.execute(status -> {
+            ReportJob submitted = reportJobService.submit(createReportJob, authority);
+            reportJobService.claim(submitted.getId(), "other-node-2");
+            return submitted;
+        });
+
+        Path directory = reportJobService.getReportDirectory();
+        Files.createDirectories(directory);
+        //Job ids start over with the embedded database, so earlier runs may have left a report under this one's name
+        Files.deleteIfExists(directory.resolve(ReportJobWorker.getFileName(reportJob)));
+        Path ownersPartFile = directory.resolve(ReportJobWorker.getFileName(reportJob) + ".other-node-2.part");
+        Files.write(ownersPartFile, Collections.singletonList("day,tester,results"), StandardCharsets.UTF_8);
+
+        //Act
+        reportJobWorker.run(reportJob, "this-node-1");
+
+        //Assert
+        ReportJob afterRun = reportJobService.getJob(reportJob.getId(), authority);
+        assertThat(afterRun.getStatus(), equalTo(ReportJobStatus.RUNNING));
+        assertThat(afterRun.getClaimedBy(), equalTo("other-node-2"));
+        assertThat(Files.exists(ownersPartFile), equalTo(true));
+        assertThat(Files.exists(directory.resolve(ReportJobWorker.getFileName(reportJob))), equalTo(false));
+        assertThat(Files.exists(directory.resolve(ReportJobWorker.getFileName(reportJob) + ".this-node-1.part")), equalTo(false));
+    }
+
+}
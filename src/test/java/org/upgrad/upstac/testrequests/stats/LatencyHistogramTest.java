@@ -0,0 +1,49 @@
+package org.upgrad.upstac.testrequests.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    public void when_values_are_recorded_expect_percentiles_within_the_bucket_precision() {
+
+        //Arrange
+        LatencyHistogram histogram = new LatencyHistogram(5);
+
+        //Act
+        for (long millis = 1; millis <= 100000; millis++)
+            histogram.record(millis);
+        TransitionLatency latency = histogram.getLatency();
+
+        //Assert
+        assertThat(latency.getCount(), equalTo(100000L));
+        assertThat(latency.getMinMillis(), equalTo(1L));
+        assertThat(latency.getMaxMillis(), equalTo(100000L));
+        assertThat(latency.getMeanMillis(), equalTo(50000L));
+        assertThat((double) latency.getP50Millis(), closeTo(50000, 50000 / 32.0));
+        assertThat((double) latency.getP99Millis(), closeTo(99000, 99000 / 32.0));
+        assertThat(latency.getP99Millis(), lessThanOrEqualTo(latency.getMaxMillis()));
+    }
+
+    @Test
+    public void when_values_are_out_of_range_expect_them_clamped() {
+
+        //Arrange
+        LatencyHistogram histogram = new LatencyHistogram(3);
+
+        //Act
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        TransitionLatency latency = histogram.getLatency();
+
+        //Assert
+        assertThat(latency.getMinMillis(), equalTo(0L));
+        assertThat(latency.getMaxMillis(), equalTo(LatencyHistogram.MAX_VALUE));
+        assertThat(latency.getP50Millis(), equalTo(0L));
+        assertThat(new LatencyHistogram(3).getLatency().getCount(), equalTo(0L));
+    }
+
+}
@@ -0,0 +1,40 @@
+package org.upgrad.upstac.testrequests.stats;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequestPipelineTest;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+import org.upgrad.upstac.users.User;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class TestRequestStatsServiceTest extends TestRequestPipelineTest {
+
+    @Autowired
+    TestRequestStatsService testRequestStatsService;
+
+    @Test
+    public void dashboard_counters_should_follow_every_transition_and_agree_with_the_database() {
+
+        //Arrange
+        User user = userService.findByUserName("user");
+        User tester = userService.findByUserName("tester");
+        testRequestStatsService.reconcile();
+        TestRequestStats before = testRequestStatsService.getStats();
+
+        //Act
+        Long id = testRequestService.createTestRequestFrom(user, createTestRequest()).getRequestId();
+        testRequestUpdateService.assignForLabTest(id, tester);
+        testRequestUpdateService.updateLabTest(id, createLabResult(), tester);
+        TestRequestStats after = testRequestStatsService.getStats();
+        testRequestStatsService.reconcile();
+
+        //Assert
+        assertThat(after.getRequests().get(RequestStatus.INITIATED), equalTo(before.getRequests().get(RequestStatus.INITIATED)));
+        assertThat(after.getRequests().get(RequestStatus.LAB_TEST_COMPLETED), equalTo(before.getRequests().get(RequestStatus.LAB_TEST_COMPLETED) + 1));
+        assertThat(after.getResults().get(TestStatus.POSITIVE), equalTo(before.getResults().get(TestStatus.POSITIVE) + 1));
+        assertThat(testRequestStatsService.getStats().getRequests(), equalTo(after.getRequests()));
+    }
+}
@@ -0,0 +1,38 @@
+package org.upgrad.upstac.testrequests.stats;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.upgrad.upstac.testrequests.TestRequestPipelineTest;
+import org.upgrad.upstac.users.User;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+class TurnaroundServiceTest extends TestRequestPipelineTest {
+
+    @Autowired
+    TurnaroundService turnaroundService;
+
+    @Test
+    public void turnaround_should_be_measured_per_transition_and_pin_code_without_reading_the_flow_table() {
+
+        //Arrange
+        User user = userService.findByUserName("user");
+        User tester = userService.findByUserName("tester");
+        Long id = createTestRequestIn(user, 600101);
+        testRequestUpdateService.assignForLabTest(id, tester);
+        statistics.clear();
+
+        //Act
+        TransitionLatency overall = turnaroundService.getStats(null).getTransitions().get("INITIATED->LAB_TEST_IN_PROGRESS");
+        TransitionLatency inPinCode = turnaroundService.getStats(600101).getTransitions().get("INITIATED->LAB_TEST_IN_PROGRESS");
+
+        //Assert
+        assertThat(statistics.getPrepareStatementCount(), equalTo(0L));
+        assertThat(overall.getCount(), greaterThan(0L));
+        assertThat(inPinCode.getCount(), equalTo(1L));
+        assertThat(turnaroundService.getStats(600102).getTransitions().isEmpty(), equalTo(true));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from test_request_flow where request_request_id = ? and happened_at is null", Long.class, id), equalTo(0L));
+    }
+}
@@ -0,0 +1,31 @@
+package org.upgrad.upstac.users;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Slice;
+import org.upgrad.upstac.testrequests.TestRequestPipelineTest;
+import org.upgrad.upstac.users.roles.UserRole;
+
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+
+class UserDirectoryTest extends TestRequestPipelineTest {
+
+    @Test
+    public void a_page_of_the_user_directory_should_take_one_statement() {
+
+        //Arrange
+        statistics.clear();
+
+        //Act
+        Slice<UserSummary> testers = userService.findSummaries(UserRole.TESTER, null, null, "test", 0, 10, "created");
+
+        //Assert
+        assertThat(testers.getContent().stream().map(UserSummary::getUserName).collect(Collectors.toList()), hasItem("tester"));
+        assertThat(testers.getContent().stream().map(UserSummary::getRole).distinct().collect(Collectors.toList()), contains(UserRole.TESTER.name()));
+        assertThat(statistics.getPrepareStatementCount(), equalTo(1L));
+    }
+}
@@ -0,0 +1,29 @@
+package org.upgrad.upstac.users;
+
+import org.junit.jupiter.api.Test;
+import org.upgrad.upstac.testrequests.TestRequestPipelineTest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+class UserSecondLevelCacheTest extends TestRequestPipelineTest {
+
+    @Test
+    public void a_user_and_their_roles_should_be_read_from_the_second_level_cache_once_loaded() {
+
+        //Arrange
+        Long id = userService.findByUserName("tester").getId();
+        entityManagerFactory.getCache().evictAll();
+        userService.findById(id);
+        statistics.clear();
+
+        //Act
+        User tester = userService.findById(id).orElseThrow(AssertionError::new);
+
+        //Assert
+        assertThat(tester.doesRoleIsTester(), equalTo(true));
+        assertThat(statistics.getPrepareStatementCount(), equalTo(0L));
+        assertThat(statistics.getSecondLevelCacheHitCount(), greaterThan(0L));
+    }
+}
@@ -0,0 +1,44 @@
+package org.upgrad.upstac.users.approvals;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.upgrad.upstac.testrequests.TestRequestPipelineTest;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.models.AccountStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.upgrad.upstac.config.loaddata.AppInitializationService.createRegisterRequestWith;
+
+class BulkApprovalServiceTest extends TestRequestPipelineTest {
+
+    @Autowired
+    BulkApprovalService bulkApprovalService;
+
+    @Test
+    public void bulk_approval_should_update_pending_accounts_once_and_audit_each() {
+
+        //Arrange
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+            ids.add(userService.addTester(createRegisterRequestWith("bulktester" + i, 500001)).getId());
+        BulkApprovalRequest request = new BulkApprovalRequest();
+        request.setStatus(AccountStatus.APPROVED);
+        request.setUserIds(ids);
+        User authority = userService.findByUserName("authority");
+
+        //Act
+        BulkApprovalResult first = bulkApprovalService.updateStatus(request, authority);
+        BulkApprovalResult second = bulkApprovalService.updateStatus(request, authority);
+
+        //Assert
+        assertThat(first.getUpdated(), containsInAnyOrder("bulktester0", "bulktester1", "bulktester2"));
+        assertThat(second.getUpdated().size(), equalTo(0));
+        assertThat(userService.isApprovedUser("bulktester1"), equalTo(true));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from user_status_audit where changed_by = 'authority' and user_name like 'bulktester%'", Long.class), equalTo(3L));
+    }
+}